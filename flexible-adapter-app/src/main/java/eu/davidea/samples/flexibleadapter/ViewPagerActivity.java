@@ -15,6 +15,7 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 
+import eu.davidea.flexibleadapter.common.SharedRecycledViewPool;
 import eu.davidea.samples.flexibleadapter.fragments.FragmentViewPager;
 import eu.davidea.samples.flexibleadapter.views.HeaderView;
 
@@ -35,6 +36,12 @@ public class ViewPagerActivity extends AppCompatActivity {
 	 */
 	private ViewPager mViewPager;
 
+	/**
+	 * The pool shared by the RecyclerViews of all pages: the same layouts are not inflated
+	 * again for each page.
+	 */
+	private SharedRecycledViewPool mSharedViewPool = new SharedRecycledViewPool();
+
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
@@ -81,6 +88,10 @@ public class ViewPagerActivity extends AppCompatActivity {
 		});
 	}
 
+	public SharedRecycledViewPool getSharedViewPool() {
+		return mSharedViewPool;
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		// Inflate the menu; this adds items to the action bar if it is present.
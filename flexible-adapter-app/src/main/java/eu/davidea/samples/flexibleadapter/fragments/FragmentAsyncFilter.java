@@ -15,6 +15,7 @@ import eu.davidea.flexibleadapter.FlexibleAdapter;
 import eu.davidea.flexibleadapter.SelectableAdapter;
 import eu.davidea.flexibleadapter.common.DividerItemDecoration;
 import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.paging.CursorItemList;
 import eu.davidea.flipview.FlipView;
 import eu.davidea.samples.flexibleadapter.MainActivity;
 import eu.davidea.samples.flexibleadapter.R;
@@ -70,6 +71,7 @@ public class FragmentAsyncFilter extends AbstractFragment {
 
 		//Restore FAB button and icon
 		initializeFab();
+		closeCursorItems();
 
 		if (configure) {
 			//Create configuration list
@@ -78,6 +80,11 @@ public class FragmentAsyncFilter extends AbstractFragment {
 			// optimize the changes of the items.
 			mAdapter = new FlexibleAdapter<>(DatabaseService.getInstance().getDatabaseList(),
 					getActivity(), true);
+		} else if (DatabaseConfiguration.useCursor) {
+			//Items are mapped on demand from the SQLite rows, the filter is a SQL query
+			DatabaseService.getInstance().createCursorDatabase(DatabaseConfiguration.size, 20);
+			mAdapter = new FlexibleAdapter<>(null, getActivity());
+			mAdapter.setLazyItems(DatabaseService.getInstance().newCursorItemList());
 		} else {
 			//Create Database with custom size (stableIds must remains = false)
 			DatabaseService.getInstance().createEndlessDatabase(DatabaseConfiguration.size);//N. of items (1000 items it's already a medium size)
@@ -89,6 +96,18 @@ public class FragmentAsyncFilter extends AbstractFragment {
 		configure = !configure;
 	}
 
+	@Override
+	public void onDestroy() {
+		closeCursorItems();
+		super.onDestroy();
+	}
+
+	private void closeCursorItems() {
+		if (mAdapter != null && mAdapter.getLazyItems() instanceof CursorItemList) {
+			((CursorItemList) mAdapter.getLazyItems()).close();
+		}
+	}
+
 	@Override
 	public void onSaveInstanceState(Bundle outState) {
 		configure = !configure;//revert the change so next time the "if-else" is executed correctly
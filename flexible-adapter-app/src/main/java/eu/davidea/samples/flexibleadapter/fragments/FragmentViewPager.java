@@ -17,10 +17,12 @@ import java.util.List;
 
 import eu.davidea.fastscroller.FastScroller;
 import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.common.SharedRecycledViewPool;
 import eu.davidea.flexibleadapter.common.SmoothScrollLinearLayoutManager;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flipview.FlipView;
 import eu.davidea.samples.flexibleadapter.R;
+import eu.davidea.samples.flexibleadapter.ViewPagerActivity;
 import eu.davidea.samples.flexibleadapter.items.HeaderItem;
 import eu.davidea.samples.flexibleadapter.services.DatabaseConfiguration;
 import eu.davidea.samples.flexibleadapter.services.DatabaseService;
@@ -39,6 +41,7 @@ public class FragmentViewPager extends Fragment {
 
 	private int mSection;
 	private FlexibleAdapter mAdapter;
+	private RecyclerView mRecyclerView;
 
 	public FragmentViewPager() {
 	}
@@ -94,8 +97,13 @@ public class FragmentViewPager extends Fragment {
 		// Experimenting NEW features (v5.0.0)
 		mAdapter.setAnimationOnScrolling(DatabaseConfiguration.animateOnScrolling);
 
-		RecyclerView mRecyclerView = (RecyclerView) getView().findViewById(R.id.recycler_view);
-		mRecyclerView.setLayoutManager(new SmoothScrollLinearLayoutManager(getActivity()));
+		mRecyclerView = (RecyclerView) getView().findViewById(R.id.recycler_view);
+		SmoothScrollLinearLayoutManager layoutManager = new SmoothScrollLinearLayoutManager(getActivity());
+		// Give back the ViewHolders to the shared pool when the page is destroyed
+		layoutManager.setRecycleChildrenOnDetach(true);
+		mRecyclerView.setLayoutManager(layoutManager);
+		// Share the ViewHolders among the pages
+		getSharedViewPool().attach(mRecyclerView);
 		mRecyclerView.setAdapter(mAdapter);
 		mRecyclerView.setHasFixedSize(true); //Size of RV will not change
 		// NOTE: Use default item animator 'canReuseUpdatedViewHolder()' will return true if
@@ -112,6 +120,19 @@ public class FragmentViewPager extends Fragment {
 				.setStickyHeaders(true);
 	}
 
+	@Override
+	public void onDestroyView() {
+		if (mRecyclerView != null) {
+			getSharedViewPool().detach(mRecyclerView);
+			mRecyclerView = null;
+		}
+		super.onDestroyView();
+	}
+
+	private SharedRecycledViewPool getSharedViewPool() {
+		return ((ViewPagerActivity) getActivity()).getSharedViewPool();
+	}
+
 	private List<IFlexible> createList(int size, int headers) {
 		HeaderItem header = null;
 		List<IFlexible> items = new ArrayList<>();
@@ -1,5 +1,6 @@
 package eu.davidea.samples.flexibleadapter.items;
 
+import eu.davidea.flexibleadapter.filter.SearchKey;
 import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
 import eu.davidea.viewholders.FlexibleViewHolder;
 
@@ -15,6 +16,10 @@ public abstract class AbstractItem<VH extends FlexibleViewHolder>
 	protected String id;
 	protected String title;
 	protected String subtitle = "";
+	/* normalized title for filter and highlight, recreated when the title changes */
+	private transient SearchKey titleKey;
+	/* normalized subtitle, recreated when the subtitle, also if computed, changes */
+	private transient SearchKey subtitleKey;
 	/* number of times this item has been refreshed */
 	protected int updates;
 
@@ -54,6 +59,12 @@ public abstract class AbstractItem<VH extends FlexibleViewHolder>
 
 	public void setTitle(String title) {
 		this.title = title;
+		this.titleKey = null;
+	}
+
+	public SearchKey getTitleKey() {
+		if (titleKey == null) titleKey = new SearchKey(title);
+		return titleKey;
 	}
 
 	public String getSubtitle() {
@@ -64,6 +75,13 @@ public abstract class AbstractItem<VH extends FlexibleViewHolder>
 		this.subtitle = subtitle;
 	}
 
+	public SearchKey getSubtitleKey() {
+		String subtitle = getSubtitle() != null ? getSubtitle() : "";
+		if (subtitleKey == null || !subtitleKey.getText().equals(subtitle))
+			subtitleKey = new SearchKey(subtitle);
+		return subtitleKey;
+	}
+
 	public int getUpdates() {
 		return updates;
 	}
@@ -102,8 +102,8 @@ public class SimpleItem extends AbstractItem<SimpleItem.SimpleViewHolder>
 
 		// In case of searchText matches with Title or with a field this will be highlighted
 		if (adapter.hasSearchText()) {
-			Utils.highlightText(holder.mTitle, getTitle(), adapter.getSearchText());
-			Utils.highlightText(holder.mSubtitle, getSubtitle(), adapter.getSearchText());
+			Utils.highlightText(holder.mTitle, getTitleKey(), adapter.getSearchText());
+			Utils.highlightText(holder.mSubtitle, getSubtitleKey(), adapter.getSearchText());
 		} else {
 			holder.mTitle.setText(getTitle());
 			holder.mSubtitle.setText(getSubtitle());
@@ -112,8 +112,7 @@ public class SimpleItem extends AbstractItem<SimpleItem.SimpleViewHolder>
 
 	@Override
 	public boolean filter(String constraint) {
-		return getTitle() != null && getTitle().toLowerCase().trim().contains(constraint) ||
-				getSubtitle() != null && getSubtitle().toLowerCase().trim().contains(constraint);
+		return getTitleKey().matches(constraint) || getSubtitleKey().matches(constraint);
 	}
 
 	static final class SimpleViewHolder extends FlexibleViewHolder {
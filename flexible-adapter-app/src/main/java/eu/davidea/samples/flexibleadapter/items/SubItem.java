@@ -65,7 +65,7 @@ public class SubItem extends AbstractItem<SubItem.ChildViewHolder>
 		// this will be highlighted
 		if (adapter.hasSearchText()) {
 			Context context = holder.itemView.getContext();
-			Utils.highlightText(context, holder.mTitle, getTitle(), adapter.getSearchText(),
+			Utils.highlightText(holder.mTitle, getTitleKey(), adapter.getSearchText(),
 					context.getResources().getColor(R.color.colorAccent_light));
 		} else {
 			holder.mTitle.setText(getTitle());
@@ -78,7 +78,7 @@ public class SubItem extends AbstractItem<SubItem.ChildViewHolder>
 
 	@Override
 	public boolean filter(String constraint) {
-		return getTitle() != null && getTitle().toLowerCase().trim().contains(constraint);
+		return getTitleKey().matches(constraint);
 	}
 
 	/**
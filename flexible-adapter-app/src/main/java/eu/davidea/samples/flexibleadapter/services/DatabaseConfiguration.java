@@ -15,7 +15,8 @@ public class DatabaseConfiguration {
 			SEARCH_DELAY = "search_delay",
 			ANIMATE_TO_LIMIT = "animate_to_limit",
 			NOTIFY_CHANGE = "notify_change",
-			NOTIFY_MOVE = "notify_move";
+			NOTIFY_MOVE = "notify_move",
+			USE_CURSOR = "use_cursor";
 
 	//Values
 	public static int maxSize = 10000;//max number of items
@@ -26,6 +27,7 @@ public class DatabaseConfiguration {
 	public static boolean animateWithDiffUtil = false;
 	public static boolean notifyChange = true;
 	public static boolean notifyMove = false;
+	public static boolean useCursor = false;
 	public static boolean animateOnScrolling = true;
 	public static boolean animateOnUpdate = true;
 	public static boolean userLearnedSelection = false;
@@ -49,6 +51,9 @@ public class DatabaseConfiguration {
 			case NOTIFY_MOVE:
 				notifyMove = value == 1;
 				break;
+			case USE_CURSOR:
+				useCursor = value == 1;
+				break;
 		}
 	}
 
@@ -2,7 +2,11 @@ package eu.davidea.samples.flexibleadapter.services;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
+import android.util.SparseArray;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -16,6 +20,7 @@ import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
 import eu.davidea.flexibleadapter.items.IExpandable;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.paging.CursorItemList;
 import eu.davidea.samples.flexibleadapter.R;
 import eu.davidea.samples.flexibleadapter.items.AbstractItem;
 import eu.davidea.samples.flexibleadapter.items.AnimatorExpandableItem;
@@ -53,6 +58,8 @@ public class DatabaseService {
 	//Database original items (used as cache)
 	private List<AbstractFlexibleItem> mItems = new ArrayList<AbstractFlexibleItem>();
 	private Map<StaggeredItemStatus, StaggeredHeaderItem> headers;
+	//SQLite database for the lazy items (only the rows in the window are items)
+	private SQLiteDatabase mSQLiteDatabase;
 
 
 	private DatabaseService() {
@@ -174,6 +181,11 @@ public class DatabaseService {
 				.withDescription(resources.getString(R.string.config_notify_move_description))
 				.withValue(DatabaseConfiguration.notifyMove ? 1 : 0)
 		);
+		mItems.add(new ConfigurationItem(DatabaseConfiguration.USE_CURSOR, ConfigurationItem.SWITCH)
+				.withTitle(resources.getString(R.string.config_use_cursor))
+				.withDescription(resources.getString(R.string.config_use_cursor_description))
+				.withValue(DatabaseConfiguration.useCursor ? 1 : 0)
+		);
 	}
 
 	/*
@@ -260,6 +272,74 @@ public class DatabaseService {
 		}
 	}
 
+	/*
+	 * SQLite table of Simple items with Header linked: items are not created here but
+	 * mapped on demand by the CursorItemList returned by newCursorItemList().
+	 */
+	public void createCursorDatabase(int size, int headers) {
+		databaseType = DatabaseType.CURSOR;
+		mItems.clear();
+		if (mSQLiteDatabase != null) mSQLiteDatabase.close();
+		mSQLiteDatabase = SQLiteDatabase.create(null);
+		mSQLiteDatabase.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY, title TEXT, header INTEGER)");
+		SQLiteStatement insert = mSQLiteDatabase.compileStatement("INSERT INTO items VALUES (?, ?, ?)");
+		int sectionSize = Math.max(1, Math.round((float) size / headers));
+		mSQLiteDatabase.beginTransaction();
+		try {
+			for (int i = 1; i <= size; i++) {
+				insert.bindLong(1, i);
+				insert.bindString(2, "Simple Item " + i);
+				insert.bindLong(3, (i - 1) / sectionSize + 1);
+				insert.executeInsert();
+			}
+			mSQLiteDatabase.setTransactionSuccessful();
+		} finally {
+			mSQLiteDatabase.endTransaction();
+			insert.close();
+		}
+	}
+
+	/*
+	 * Queries the rows whose title contains the constraint, all rows if empty.
+	 * Can be called in background thread.
+	 */
+	public Cursor queryItems(String constraint) {
+		if (mSQLiteDatabase == null || !mSQLiteDatabase.isOpen()) return null;
+		if (constraint == null || constraint.isEmpty())
+			return mSQLiteDatabase.rawQuery("SELECT _id, title, header FROM items ORDER BY _id", null);
+		return mSQLiteDatabase.rawQuery("SELECT _id, title, header FROM items WHERE title LIKE ? ORDER BY _id",
+				new String[]{"%" + constraint + "%"});
+	}
+
+	/*
+	 * Lazy list of Simple items mapped from the SQLite rows: evicted items are reused for
+	 * the new rows, the same Header instance is linked to all items of a section.
+	 */
+	public CursorItemList<AbstractFlexibleItem> newCursorItemList() {
+		final SparseArray<HeaderItem> headers = new SparseArray<HeaderItem>();
+		return new CursorItemList<AbstractFlexibleItem>(queryItems(null), new CursorItemList.RowMapper<AbstractFlexibleItem>() {
+			@Override
+			public AbstractFlexibleItem mapRow(Cursor cursor, AbstractFlexibleItem recycled) {
+				int headerId = cursor.getInt(2);
+				HeaderItem header = headers.get(headerId);
+				if (header == null) {
+					header = newHeader(headerId);
+					headers.put(headerId, header);
+				}
+				SimpleItem item = recycled != null ? (SimpleItem) recycled : new SimpleItem(null, null);
+				item.setId("I" + cursor.getLong(0));
+				item.setTitle(cursor.getString(1));
+				item.setHeader(header);
+				return item;
+			}
+		}).setCursorProvider(new CursorItemList.CursorProvider() {
+			@Override
+			public Cursor query(String constraint) {
+				return queryItems(constraint);
+			}
+		});
+	}
+
 	/*
 	 * List of CardView items
 	 */
@@ -486,6 +566,8 @@ public class DatabaseService {
 	}
 
 	public static void onDestroy() {
+		if (mInstance != null && mInstance.mSQLiteDatabase != null)
+			mInstance.mSQLiteDatabase.close();
 		mInstance = null;
 	}
 
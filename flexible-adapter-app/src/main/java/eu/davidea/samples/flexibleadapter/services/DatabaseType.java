@@ -9,6 +9,7 @@ public enum DatabaseType {
 	EXPANDABLE_SECTIONS,
 	EXPANDABLE_MULTI_LEVEL,
 	ENDLESS_SCROLLING,
+	CURSOR,
 	MODEL_HOLDERS,
 	LAYOUT_HORIZONTAL,
 	LAYOUT_STAGGERED,
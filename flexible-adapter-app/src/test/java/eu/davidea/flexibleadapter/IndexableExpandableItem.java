@@ -0,0 +1,40 @@
+package eu.davidea.flexibleadapter;
+
+import eu.davidea.flexibleadapter.items.AbstractExpandableItem;
+import eu.davidea.flexibleadapter.items.IIndexable;
+import eu.davidea.viewholders.ExpandableViewHolder;
+
+/**
+ * Expandable item of the filter index tests, indexed by its title.
+ *
+ * @author Davide Steduto
+ * @since 28/01/2017
+ */
+class IndexableExpandableItem extends AbstractExpandableItem<ExpandableViewHolder, IndexableItem>
+		implements IIndexable {
+	String title;
+
+	IndexableExpandableItem(String title) {
+		this.title = title;
+	}
+
+	@Override
+	public String getIndexText() {
+		return title;
+	}
+
+	@Override
+	public boolean filter(String constraint) {
+		return title.toLowerCase().contains(constraint);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o;
+	}
+
+	@Override
+	public String toString() {
+		return title;
+	}
+}
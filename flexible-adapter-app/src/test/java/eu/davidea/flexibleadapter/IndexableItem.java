@@ -0,0 +1,40 @@
+package eu.davidea.flexibleadapter;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.IIndexable;
+import eu.davidea.viewholders.FlexibleViewHolder;
+
+/**
+ * Item of the filter index tests, indexed by its title.
+ *
+ * @author Davide Steduto
+ * @since 28/01/2017
+ */
+class IndexableItem extends AbstractFlexibleItem<FlexibleViewHolder>
+		implements IIndexable {
+	String title;
+
+	IndexableItem(String title) {
+		this.title = title;
+	}
+
+	@Override
+	public String getIndexText() {
+		return title;
+	}
+
+	@Override
+	public boolean filter(String constraint) {
+		return title.toLowerCase().contains(constraint);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o;
+	}
+
+	@Override
+	public String toString() {
+		return title;
+	}
+}
@@ -0,0 +1,98 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.filter.MappedFilterIndex;
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 28/01/2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MappedFilterIndexTest {
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	File mFile;
+	List<AbstractFlexibleItem> mItems;
+	IndexableItem apple, banana;
+
+	@Before
+	public void setUp() throws Exception {
+		mFile = mFolder.newFile("index.bin");
+		apple = new IndexableItem("Apple");
+		banana = new IndexableItem("Banana");
+		mItems = new ArrayList<>();
+		mItems.add(apple);
+		mItems.add(banana);
+	}
+
+	@Test
+	public void testRebuildKeepsAddedAndUpdatedItems() throws Exception {
+		MappedFilterIndex<AbstractFlexibleItem> index =
+				MappedFilterIndex.openOrWrite(mFile, 1L, mItems, 3);
+
+		IndexableItem cherry = new IndexableItem("Cherry");
+		index.add(cherry);
+		banana.title = "Banana split";
+		index.update(banana);
+
+		index.rebuild(mFile, 2L);
+		assertCandidates(index.getCandidates("cherry"), cherry);
+		assertCandidates(index.getCandidates("split"), banana);
+		assertCandidates(index.getCandidates("apple"), apple);
+
+		// The rebuilt file is opened with the items in the same order: new items follow
+		mItems.add(cherry);
+		index = MappedFilterIndex.open(mFile, 2L, mItems);
+		assertNotNull(index);
+		assertCandidates(index.getCandidates("split"), banana);
+		assertCandidates(index.getCandidates("cherry"), cherry);
+	}
+
+	@Test
+	public void testRestoredRootKeepsUpdatedSubItems() throws Exception {
+		IndexableExpandableItem fruits = new IndexableExpandableItem("Fruits");
+		IndexableItem cherry = new IndexableItem("Cherry");
+		fruits.addSubItem(cherry);
+		mItems.add(fruits);
+		MappedFilterIndex<AbstractFlexibleItem> index =
+				MappedFilterIndex.openOrWrite(mFile, 1L, mItems, 3);
+
+		cherry.title = "Cranberry";
+		index.update(cherry);
+		// New data set: the Adapter adds again only the roots
+		index.clear();
+		index.add(apple);
+		index.add(banana);
+		index.add(fruits);
+		assertCandidates(index.getCandidates("cranberry"), fruits);
+		assertCandidates(index.getCandidates("fruits"), fruits);
+		assertCandidates(index.getCandidates("banana"), banana);
+	}
+
+	private void assertCandidates(Set<AbstractFlexibleItem> candidates, AbstractFlexibleItem item) {
+		assertNotNull(candidates);
+		assertEquals(1, candidates.size());
+		assertTrue(candidates.contains(item));
+	}
+
+}
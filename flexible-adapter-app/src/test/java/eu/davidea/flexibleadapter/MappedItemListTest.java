@@ -0,0 +1,148 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.paging.MappedItemList;
+import eu.davidea.viewholders.FlexibleViewHolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 28/01/2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MappedItemListTest {
+
+	static final int TITLE_LENGTH = 16;
+	static final String[] TITLES = {"Apple", "ISTANBUL", "Banana", "Pineapple"};
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	Locale mDefaultLocale = Locale.getDefault();
+	File mFile;
+	MappedItemList<TitleItem> mList;
+
+	@Before
+	public void setUp() throws Exception {
+		mFile = mFolder.newFile("records.bin");
+		MappedItemList.write(mFile, 1L, TITLE_LENGTH, TITLES.length, new MappedItemList.RecordWriter() {
+			@Override
+			public void writeRecord(int position, ByteBuffer record) {
+				MappedItemList.putText(record, 0, TITLE_LENGTH, TITLES[position]);
+			}
+		});
+		mList = MappedItemList.open(mFile, 1L, new TitleBinder());
+		assertNotNull(mList);
+		mList.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Locale.setDefault(mDefaultLocale);
+	}
+
+	@Test
+	public void testWriteAndOpen() throws Exception {
+		assertEquals(TITLES.length, mList.size());
+		assertEquals("Banana", mList.get(2).title);
+		// Flyweights are reused for the positions sharing the slot
+		mList.setFlyweightCount(1);
+		TitleItem item = mList.get(0);
+		assertSame(item, mList.get(3));
+		assertEquals("Pineapple", item.title);
+		// Other versions must be written again
+		assertNull(MappedItemList.open(mFile, 2L, new TitleBinder()));
+	}
+
+	@Test
+	public void testFilter() throws Exception {
+		filter("APPLE");
+		assertTrue(mList.isFiltered());
+		assertEquals(2, mList.size());
+		assertEquals("Apple", mList.get(0).title);
+		assertEquals(3, mList.getRecordPosition(1));
+
+		filter(null);
+		assertFalse(mList.isFiltered());
+		assertEquals(TITLES.length, mList.size());
+	}
+
+	@Test
+	public void testFilterIgnoresDefaultLocale() throws Exception {
+		Locale.setDefault(new Locale("tr", "TR"));
+		filter("Istanbul");
+		assertEquals(1, mList.size());
+		assertEquals("ISTANBUL", mList.get(0).title);
+	}
+
+	@Test
+	public void testTextContains() throws Exception {
+		ByteBuffer record = ByteBuffer.allocate(TITLE_LENGTH);
+		MappedItemList.putText(record, 0, TITLE_LENGTH, "Pineapple");
+		assertTrue(MappedItemList.textContains(record, 0, TITLE_LENGTH, MappedItemList.toLowerCaseText("APPLE")));
+		assertTrue(MappedItemList.textContains(record, 0, TITLE_LENGTH, new byte[0]));
+		assertFalse(MappedItemList.textContains(record, 0, TITLE_LENGTH, MappedItemList.toLowerCaseText("apples")));
+		// The padding is not part of the text
+		assertFalse(MappedItemList.textContains(record, 0, TITLE_LENGTH, new byte[]{'e', 0}));
+	}
+
+	private void filter(String constraint) {
+		mList.filter(constraint);
+		ShadowLooper.runUiThreadTasks();
+	}
+
+	private static class TitleBinder implements MappedItemList.RecordBinder<TitleItem> {
+
+		@Override
+		public TitleItem newFlyweight() {
+			return new TitleItem();
+		}
+
+		@Override
+		public void bindRecord(TitleItem flyweight, ByteBuffer buffer, int offset, int position) {
+			flyweight.title = MappedItemList.getText(buffer, offset, TITLE_LENGTH);
+		}
+
+		@Override
+		public boolean filterRecord(ByteBuffer buffer, int offset, byte[] constraint) {
+			return MappedItemList.textContains(buffer, offset, TITLE_LENGTH, constraint);
+		}
+	}
+
+	private static class TitleItem extends AbstractFlexibleItem<FlexibleViewHolder> {
+		String title;
+
+		@Override
+		public boolean equals(Object o) {
+			return this == o;
+		}
+	}
+
+}
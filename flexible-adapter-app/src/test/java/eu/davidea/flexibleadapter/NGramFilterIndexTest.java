@@ -0,0 +1,89 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.filter.NGramFilterIndex;
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 16/01/2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class NGramFilterIndexTest {
+
+	NGramFilterIndex<AbstractFlexibleItem> mIndex;
+	IndexableItem apple, pineapple, banana;
+
+	@Before
+	public void setUp() throws Exception {
+		mIndex = new NGramFilterIndex<>();
+		apple = new IndexableItem("Apple");
+		pineapple = new IndexableItem("Pineapple juice");
+		banana = new IndexableItem("Banana");
+		mIndex.add(apple);
+		mIndex.add(pineapple);
+		mIndex.add(banana);
+	}
+
+	@Test
+	public void testCandidates() throws Exception {
+		Set<AbstractFlexibleItem> candidates = mIndex.getCandidates("apple");
+		assertEquals(2, candidates.size());
+		assertTrue(candidates.contains(apple));
+		assertTrue(candidates.contains(pineapple));
+
+		// All the words must match
+		candidates = mIndex.getCandidates("apple juice");
+		assertEquals(1, candidates.size());
+		assertTrue(candidates.contains(pineapple));
+
+		assertTrue(mIndex.getCandidates("cherry").isEmpty());
+		// Words too short cannot be resolved
+		assertNull(mIndex.getCandidates("ap"));
+	}
+
+	@Test
+	public void testRemoveAndUpdate() throws Exception {
+		mIndex.remove(apple);
+		assertFalse(mIndex.contains(apple));
+		assertEquals(1, mIndex.getCandidates("apple").size());
+
+		banana.title = "Banana and apple";
+		mIndex.update(banana);
+		Set<AbstractFlexibleItem> candidates = mIndex.getCandidates("apple");
+		assertEquals(2, candidates.size());
+		assertTrue(candidates.contains(banana));
+		assertEquals(1, mIndex.getCandidates("banana").size());
+	}
+
+	@Test
+	public void testSubItemsResolveToRoot() throws Exception {
+		IndexableExpandableItem fruits = new IndexableExpandableItem("Fruits");
+		IndexableItem cherry = new IndexableItem("Cherry");
+		fruits.addSubItem(cherry);
+		mIndex.add(fruits);
+		assertTrue(mIndex.contains(cherry));
+
+		Set<AbstractFlexibleItem> candidates = mIndex.getCandidates("cherry");
+		assertEquals(1, candidates.size());
+		assertTrue(candidates.contains(fruits));
+
+		mIndex.remove(fruits);
+		assertFalse(mIndex.contains(cherry));
+		assertTrue(mIndex.getCandidates("cherry").isEmpty());
+	}
+
+}
@@ -0,0 +1,67 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Locale;
+
+import eu.davidea.flexibleadapter.filter.SearchKey;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 28/01/2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SearchKeyTest {
+
+	Locale mDefaultLocale = Locale.getDefault();
+
+	@After
+	public void tearDown() throws Exception {
+		Locale.setDefault(mDefaultLocale);
+	}
+
+	@Test
+	public void testNormalizePreservesLength() throws Exception {
+		SearchKey key = new SearchKey("Crème Brûlée");
+		assertEquals("creme brulee", key.getKey());
+		assertEquals(key.getText().length(), key.getKey().length());
+	}
+
+	@Test
+	public void testNormalizeIgnoresDefaultLocale() throws Exception {
+		Locale.setDefault(new Locale("tr", "TR"));
+		assertEquals("istanbul", SearchKey.normalize("ISTANBUL"));
+		assertEquals("istanbul", SearchKey.normalize("İSTANBUL"));
+	}
+
+	@Test
+	public void testMatchRanges() throws Exception {
+		SearchKey key = new SearchKey("Àpple and apple");
+		assertArrayEquals(new int[]{0, 5, 10, 15}, key.getMatchRanges("APPLE"));
+		assertEquals(0, key.getMatchRanges("pear").length);
+		assertEquals(0, key.getMatchRanges("").length);
+	}
+
+	@Test
+	public void testOtherConstraintKeepsFilterRanges() throws Exception {
+		SearchKey key = new SearchKey("Apple and pear");
+		assertTrue(key.matches("pear"));
+		int[] ranges = key.getMatchRanges("pear");
+		// A bind with another constraint doesn't replace the ranges of the filter
+		assertArrayEquals(new int[]{0, 5}, key.getMatchRanges("apple"));
+		assertSame(ranges, key.getMatchRanges("pear"));
+		assertFalse(key.matches("banana"));
+	}
+
+}
@@ -0,0 +1,83 @@
+package eu.davidea.flexibleadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.AbstractFlexibleItem;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.samples.flexibleadapter.services.DatabaseService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Davide Steduto
+ * @since 27/01/2017
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SelectionTest {
+
+	FlexibleAdapter<AbstractFlexibleItem> mAdapter;
+	List<AbstractFlexibleItem> mItems;
+
+	@Before
+	public void setUp() throws Exception {
+		DatabaseService.getInstance().createExpandableSectionsDatabase(3);
+		mItems = DatabaseService.getInstance().getDatabaseList();
+		mAdapter = new FlexibleAdapter<>(mItems);
+		mAdapter.expandItemsAtStartUp();
+		mAdapter.setMode(SelectableAdapter.MODE_MULTI);
+	}
+
+	@Test
+	public void testAddRemoveSelectionUpdatesCounters() throws Exception {
+		IExpandable parent = (IExpandable) mItems.get(0);
+		int firstChild = mAdapter.getGlobalPositionOf((AbstractFlexibleItem) parent.getSubItems().get(0));
+		int secondChild = mAdapter.getGlobalPositionOf((AbstractFlexibleItem) parent.getSubItems().get(1));
+
+		assertTrue(mAdapter.addSelection(firstChild));
+		assertTrue(mAdapter.addSelection(secondChild));
+		assertEquals(2, mAdapter.getSelectedSubItemsCount(parent));
+		assertTrue(mAdapter.isAnyChildSelected());
+		assertFalse(mAdapter.isAnyParentSelected());
+
+		assertTrue(mAdapter.removeSelection(firstChild));
+		assertEquals(1, mAdapter.getSelectedSubItemsCount(parent));
+
+		// Toggle and direct changes are counted together
+		mAdapter.toggleSelection(firstChild);
+		assertEquals(2, mAdapter.getSelectedSubItemsCount(parent));
+		assertTrue(mAdapter.removeSelection(firstChild));
+		assertTrue(mAdapter.removeSelection(secondChild));
+		assertEquals(0, mAdapter.getSelectedSubItemsCount(parent));
+		assertFalse(mAdapter.isAnyChildSelected());
+	}
+
+	@Test
+	public void testCollapseWithSelectedSubItems() throws Exception {
+		IExpandable parent = (IExpandable) mItems.get(0);
+		int parentPosition = mAdapter.getGlobalPositionOf(mItems.get(0));
+		int child = mAdapter.getGlobalPositionOf((AbstractFlexibleItem) parent.getSubItems().get(0));
+		int itemCount = mAdapter.getItemCount();
+
+		// Parent with a selected sub item is not collapsed
+		mAdapter.addSelection(child);
+		mAdapter.collapse(parentPosition);
+		assertTrue(parent.isExpanded());
+		assertEquals(itemCount, mAdapter.getItemCount());
+
+		// Sub item deselected outside the toggle: parent can be collapsed
+		mAdapter.removeSelection(child);
+		mAdapter.collapse(parentPosition);
+		assertFalse(parent.isExpanded());
+		assertEquals(itemCount - parent.getSubItems().size(), mAdapter.getItemCount());
+	}
+
+}
@@ -21,13 +21,17 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.MessageQueue;
 import android.support.annotation.CallSuper;
 import android.support.annotation.FloatRange;
 import android.support.annotation.IntRange;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.support.v7.widget.helper.ItemTouchHelper;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -41,21 +45,37 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
+import eu.davidea.flexibleadapter.common.SharedRecycledViewPool;
 import eu.davidea.flexibleadapter.common.SmoothScrollGridLayoutManager;
 import eu.davidea.flexibleadapter.common.SmoothScrollLinearLayoutManager;
+import eu.davidea.flexibleadapter.filter.FilterDataSource;
+import eu.davidea.flexibleadapter.filter.FilterIndex;
 import eu.davidea.flexibleadapter.helpers.ItemTouchHelperCallback;
 import eu.davidea.flexibleadapter.helpers.StickyHeaderHelper;
 import eu.davidea.flexibleadapter.items.IExpandable;
 import eu.davidea.flexibleadapter.items.IFilterable;
 import eu.davidea.flexibleadapter.items.IFlexible;
 import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.items.IIndexable;
+import eu.davidea.flexibleadapter.items.ILazyExpandable;
+import eu.davidea.flexibleadapter.items.ILazySection;
+import eu.davidea.flexibleadapter.items.IRankable;
 import eu.davidea.flexibleadapter.items.ISectionable;
+import eu.davidea.flexibleadapter.items.IVirtualExpandable;
+import eu.davidea.flexibleadapter.paging.LazyItemList;
+import eu.davidea.flexibleadapter.paging.PagedItemList;
 import eu.davidea.flexibleadapter.utils.Utils;
 import eu.davidea.viewholders.ExpandableViewHolder;
 import eu.davidea.viewholders.FlexibleViewHolder;
@@ -100,8 +120,6 @@ public class FlexibleAdapter<T extends IFlexible>
 		implements ItemTouchHelperCallback.AdapterCallback {
 
 	private static final String TAG = FlexibleAdapter.class.getSimpleName();
-	private static final String EXTRA_PARENT = TAG + "_parentSelected";
-	private static final String EXTRA_CHILD = TAG + "_childSelected";
 	private static final String EXTRA_HEADERS = TAG + "_headersShown";
 	private static final String EXTRA_STICKY = TAG + "_stickyHeaders";
 	private static final String EXTRA_LEVEL = TAG + "_selectedLevel";
@@ -144,10 +162,40 @@ public class FlexibleAdapter<T extends IFlexible>
 	@SuppressLint("UseSparseArrays")//We can usually count Type instances on the fingers of a hand
 	private HashMap<Integer, T> mTypeInstances = new HashMap<>();
 	private boolean autoMap = false;
+	/* ViewHolders inflated ahead of time, per ViewType */
+	private int mPreInflationCount = 0;
+	@SuppressLint("UseSparseArrays")
+	private Map<Integer, Integer> mPreInflationCounts = new HashMap<>();
+	@SuppressLint("UseSparseArrays")
+	private Map<Integer, Integer> mPreInflated = new HashMap<>();
+	private PreInflater mPreInflater;
 
 	/* Filter */
 	private String mSearchText = "", mOldSearchText = "";
 	private Set<IExpandable> mExpandedFilterFlags;
+	/* Flags computed by the filter, applied in the UI Thread */
+	private FilterIndex<T> mFilterIndex;
+	/* Filtered root items of the recent search texts */
+	private boolean filterRefinement = false;
+	private static int FILTER_CACHE_SIZE = 10;
+	private Map<String, List<T>> mFilterCache = new LinkedHashMap<>(16, 0.75f, true);
+	private List<T> mFilterSourceList;
+	private int mFilterSourceSize = -1;
+	/* Positions of the filter source, to visit only the candidates of the search index */
+	private SourceOrder mSourceOrder;
+	/* Parallel filter */
+	private Executor mFilterExecutor;
+	private static int PARALLEL_FILTER_THRESHOLD = 1000, MIN_FILTER_CHUNK_SIZE = 250;
+	/* Progressive filter, the generation identifies the latest filter requested */
+	private int mProgressiveBatchSize = 0;
+	private long mProgressiveFrameBudget = 16L;
+	private volatile int mFilterGeneration = 0;
+	/* Ranked filter, maximum number of the results */
+	private int mRankedFilterLimit = 0;
+	/* Filter delegated to a data source, loaded in pages */
+	private FilterDataSource<T> mFilterDataSource;
+	private int mFilterPageSize, mFilterPageOffset;
+	private boolean filterPageExhausted = false;
 	private boolean notifyChangeOfUnfilteredItems = false, filtering = false,
 			notifyMoveOfFilteredItems = false;
 	private static int ANIMATE_TO_LIMIT = 700;
@@ -155,8 +203,34 @@ public class FlexibleAdapter<T extends IFlexible>
 
 	/* Expandable flags */
 	private int mMinCollapsibleLevel = 0, mSelectedLevel = -1;
-	private boolean scrollOnExpand = false, collapseOnExpand = false,
-			childSelected = false, parentSelected = false;
+	private boolean scrollOnExpand = false, collapseOnExpand = false;
+	/* Number of selected sub items, at all levels, of the expanded items */
+	private Map<IExpandable, Integer> mSelectedSubItems = new HashMap<>();
+	private int mSelectedChildrenCount = 0;
+	private boolean selectedSubItemsCounted = true;
+	/* Parent of each child of the expanded items, recorded while counting: valid until the
+	 * positions change */
+	private Map<IFlexible, IExpandable> mParentsOfChildren = new IdentityHashMap<>();
+	private boolean childrenParentsMapped = false;
+	private static int BULK_NOTIFY_LIMIT = 100;
+	private int mBulkNotifyLimit = BULK_NOTIFY_LIMIT;
+
+	/* Lazy expandable items */
+	private Executor mLazyExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private Set<ILazyExpandable> mLazyLoading = new HashSet<>();
+	private Map<ILazyExpandable, Boolean> mLazyLoaded = new LinkedHashMap<>(16, 0.75f, true);
+	private static int LAZY_CACHE_SIZE = 50;
+	private int mLazyCacheSize = LAZY_CACHE_SIZE;
+
+	/* Virtual expandable items */
+	private int mVirtualPageSize = 50, mVirtualMaxPages = 4;
+
+	/* Lazy sections: items of the reserved sections, placeholders while pending, and the
+	 * section of each pending placeholder. Guarded by mSectionItems, read by the filter */
+	private final Map<ILazySection, List<T>> mSectionItems = new IdentityHashMap<>();
+	private final Map<IFlexible, ILazySection> mSectionPlaceholders = new IdentityHashMap<>();
+	private Set<ILazySection> mSectionsLoading = new HashSet<>();
+	private int mSectionPrefetchDistance = 10;
 
 	/* Drag&Drop and Swipe helpers */
 	private ItemTouchHelperCallback mItemTouchHelperCallback;
@@ -164,8 +238,28 @@ public class FlexibleAdapter<T extends IFlexible>
 
 	/* EndlessScroll */
 	private int mEndlessScrollThreshold = 1, mEndlessTargetCount = 0, mEndlessPageSize = 0;
-	private boolean endlessLoading = false, endlessScrollEnabled = false;
+	private boolean endlessScrollEnabled = false;
 	private T mProgressItem;
+	/* Endless requests in flight, completed in order, and the pages arrived out of order */
+	private int mEndlessMaxPending = 1;
+	private LinkedList<EndlessRequest> mEndlessRequests = new LinkedList<>();
+	private Map<Integer, List<T>> mEndlessArrivedPages = new HashMap<>();
+	/* Adaptive threshold: average bind velocity (items/ms) and page latency (ms) */
+	private boolean endlessAdaptive = false;
+	private float mEndlessVelocity = 0f, mEndlessLatency = 0f;
+	private int mEndlessLastPosition = -1, mEndlessLastPageSize = 0;
+	private long mEndlessLastBindTime = 0L;
+	private static float ENDLESS_ADAPTIVE_SAFETY = 1.5f, ENDLESS_AVERAGE_WEIGHT = 0.3f;
+	/* Endless pages prepared in background, committed in order */
+	private Executor mEndlessIngestionExecutor;
+	private LinkedList<EndlessIngestion> mEndlessIngestions = new LinkedList<>();
+	/* Endless Top Scroll and window of the endless pages, ordered from the top */
+	private T mTopProgressItem;
+	private boolean endlessTopLoading = false, endlessTopScrollEnabled = false;
+	private int mEndlessPageWindow = 0;
+	private LinkedList<EndlessPage> mEndlessPages = new LinkedList<>();
+	/* Items materialized on demand */
+	private LazyItemList<T> mLazyItems;
 
 	/* Listeners */
 	protected OnUpdateListener mUpdateListener;
@@ -175,6 +269,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	protected OnItemSwipeListener mItemSwipeListener;
 	protected OnStickyHeaderChangeListener mStickyHeaderChangeListener;
 	protected EndlessScrollListener mEndlessScrollListener;
+	protected EndlessTopScrollListener mEndlessTopScrollListener;
 
 	/*--------------*/
 	/* CONSTRUCTORS */
@@ -236,6 +331,7 @@ public class FlexibleAdapter<T extends IFlexible>
 		super(stableIds);
 		if (items == null) mItems = new ArrayList<>();
 		else mItems = items;
+		mItems = addLazySectionItems(mItems, true);
 		mScrollableHeaders = new ArrayList<>();
 		mScrollableFooters = new ArrayList<>();
 		mRestoreList = new ArrayList<>();
@@ -314,6 +410,7 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (mStickyHeaderHelper != null && headersShown) {
 			mStickyHeaderHelper.attachToRecyclerView(mRecyclerView);
 		}
+		schedulePreInflation();
 	}
 
 	/**
@@ -328,6 +425,11 @@ public class FlexibleAdapter<T extends IFlexible>
 			mStickyHeaderHelper.detachFromRecyclerView();
 			mStickyHeaderHelper = null;
 		}
+		if (mPreInflater != null) {
+			Looper.myQueue().removeIdleHandler(mPreInflater);
+			mPreInflater = null;
+		}
+		mPreInflated.clear();
 		super.onDetachedFromRecyclerView(recyclerView);
 	}
 
@@ -398,25 +500,22 @@ public class FlexibleAdapter<T extends IFlexible>
 		T item = getItem(position);
 		// Allow selection only for selectable items
 		if (item != null && item.isSelectable()) {
-			IExpandable parent = getExpandableOf(item);
+			IExpandable parent = getExpandableOf(position);
 			boolean hasParent = parent != null;
-			if ((isExpandable(item) || !hasParent) && !childSelected) {
+			if ((isExpandable(item) || !hasParent) && !isAnyChildSelected()) {
 				// Allow selection of Parent if no Child has been previously selected
-				parentSelected = true;
 				if (hasParent) mSelectedLevel = parent.getExpansionLevel();
 				super.toggleSelection(position);
-			} else if (!parentSelected && hasParent && parent.getExpansionLevel() + 1 == mSelectedLevel
+			} else if (!isAnyParentSelected() && hasParent && parent.getExpansionLevel() + 1 == mSelectedLevel
 					|| mSelectedLevel == -1) {
 				// Allow selection of Child of same level and if no Parent has been previously selected
-				childSelected = true;
 				mSelectedLevel = parent.getExpansionLevel() + 1;
 				super.toggleSelection(position);
 			}
 		}
-		// Reset flags if necessary, just to be sure
+		// Reset level if necessary, just to be sure
 		if (getSelectedItemCount() == 0) {
 			mSelectedLevel = -1;
-			parentSelected = childSelected = false;
 		}
 	}
 
@@ -442,6 +541,8 @@ public class FlexibleAdapter<T extends IFlexible>
 		} else {
 			super.selectAll(viewTypes); //Force the selection for the viewTypes passed
 		}
+		// Selected sub items will be counted again at the first request
+		selectedSubItemsCounted = false;
 	}
 
 	/**
@@ -452,24 +553,122 @@ public class FlexibleAdapter<T extends IFlexible>
 	@Override
 	@CallSuper
 	public void clearSelection() {
-		parentSelected = childSelected = false;
+		mSelectedSubItems.clear();
+		mSelectedChildrenCount = 0;
+		selectedSubItemsCounted = true;
 		super.clearSelection();
 	}
 
 	/**
-	 * @return true if a parent is selected
+	 * @return true if a parent, or an item without parent, is selected
 	 * @since 5.0.0-b1
+	 * <br/>5.0.0-rc1 Computed from the current selection
 	 */
 	public boolean isAnyParentSelected() {
-		return parentSelected;
+		return getSelectedItemCount() > getSelectedChildrenCount();
 	}
 
 	/**
 	 * @return true if any child of any parent is selected, false otherwise
 	 * @since 5.0.0-b1
+	 * <br/>5.0.0-rc1 Computed from the current selection
 	 */
 	public boolean isAnyChildSelected() {
-		return childSelected;
+		return getSelectedChildrenCount() > 0;
+	}
+
+	/**
+	 * Provides the number of selected sub items, at all levels, of the expandable item.
+	 * <p>Counters are maintained by the selection methods, so the result is immediate.</p>
+	 *
+	 * @param expandable the expandable item, it should be expanded
+	 * @return the number of sub items currently selected
+	 * @since 5.0.0-rc1
+	 */
+	public int getSelectedSubItemsCount(@NonNull IExpandable expandable) {
+		if (!selectedSubItemsCounted) countSelectedSubItems();
+		Integer count = mSelectedSubItems.get(expandable);
+		return count != null ? count : 0;
+	}
+
+	/**
+	 * @return the number of selected items having a parent
+	 */
+	private int getSelectedChildrenCount() {
+		if (!selectedSubItemsCounted) countSelectedSubItems();
+		return mSelectedChildrenCount;
+	}
+
+	/**
+	 * Updates the counters of all the parents of the item (de)selected.
+	 *
+	 * @since 5.0.0-rc1
+	 */
+	@Override
+	void onSelectionChanged(int position, boolean selected) {
+		if (!selectedSubItemsCounted) return;
+		if (!childrenParentsMapped) {
+			// Positions changed: count the current selection and record the parents again
+			countSelectedSubItems();
+			return;
+		}
+		int delta = selected ? 1 : -1;
+		// Virtual sub items are not retrieved and they are not recorded
+		int virtualParentPosition = getVirtualParentPosition(position);
+		IExpandable parent = virtualParentPosition >= 0 ?
+				(IExpandable) mItems.get(virtualParentPosition) : mParentsOfChildren.get(getItem(position));
+		if (parent != null) mSelectedChildrenCount += delta;
+		for (; parent != null; parent = mParentsOfChildren.get(parent)) {
+			Integer count = mSelectedSubItems.get(parent);
+			int newCount = (count != null ? count : 0) + delta;
+			if (newCount > 0) mSelectedSubItems.put(parent, newCount);
+			else mSelectedSubItems.remove(parent);
+		}
+	}
+
+	/**
+	 * Counts again the selected sub items of all expanded items in one pass, recording the
+	 * parent of each child.
+	 */
+	private void countSelectedSubItems() {
+		mSelectedSubItems.clear();
+		mSelectedChildrenCount = 0;
+		selectedSubItemsCounted = true;
+		if (getSelectedItemCount() == 0) return;
+		mParentsOfChildren.clear();
+		// Stack of the expanded parents that contain the current position
+		List<IExpandable> parents = new ArrayList<>();
+		List<Integer> lastPositions = new ArrayList<>();
+		for (int position = 0; position < getItemCount(); position++) {
+			while (!lastPositions.isEmpty() && lastPositions.get(lastPositions.size() - 1) < position) {
+				parents.remove(parents.size() - 1);
+				lastPositions.remove(lastPositions.size() - 1);
+			}
+			countSelectedPosition(parents, position);
+			T item = mItems.get(position);
+			if (!parents.isEmpty()) mParentsOfChildren.put(item, parents.get(parents.size() - 1));
+			if (isExpanded(item)) {
+				int extent = getSubTreeExtent(position, (IExpandable) item);
+				if (extent > 0) {
+					parents.add((IExpandable) item);
+					lastPositions.add(position + extent);
+				}
+			}
+			// Virtual sub items are not expandable, they are not retrieved
+			int virtualCount = getVirtualSubItemsCount(item);
+			while (virtualCount-- > 0) countSelectedPosition(parents, ++position);
+		}
+		childrenParentsMapped = true;
+		if (DEBUG) Log.v(TAG, "Counted selected subItems of " + mSelectedSubItems.size() + " parents");
+	}
+
+	private void countSelectedPosition(List<IExpandable> parents, int position) {
+		if (!isSelected(position) || parents.isEmpty()) return;
+		mSelectedChildrenCount++;
+		for (IExpandable parent : parents) {
+			Integer count = mSelectedSubItems.get(parent);
+			mSelectedSubItems.put(parent, count != null ? count + 1 : 1);
+		}
 	}
 
 	/*--------------*/
@@ -519,7 +718,19 @@ public class FlexibleAdapter<T extends IFlexible>
 	@CallSuper
 	public void updateDataSet(@Nullable List<T> items, boolean animate) {
 		if (items == null) items = new ArrayList<>();
+		// The lazy list cannot be compared off the main thread
+		if (mLazyItems != null) animate = false;
+		detachLazyItems();
+		mEndlessPages.clear();
 		restoreScrollableHeadersAndFooters(items);
+		resetVirtualGroups();
+		resetLazyExpandables();
+		items = addLazySectionItems(items, true);
+		if (mFilterIndex != null) {
+			mFilterIndex.clear();
+			addToFilterIndex(items);
+		}
+		invalidateFilterCache();
 		if (animate) {
 			mHandler.removeMessages(UPDATE);
 			mHandler.sendMessage(Message.obtain(mHandler, UPDATE, items));
@@ -788,13 +999,12 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @see #addScrollableHeaderWithDelay(IFlexible, long, boolean)
 	 * @since 5.0.0-rc1
 	 */
-	//TODO: Endless Top Scrolling
 	public final boolean addScrollableHeader(@NonNull T headerItem) {
 		if (DEBUG) Log.d(TAG, "Add scrollable header " + getClassName(headerItem));
 		if (!mScrollableHeaders.contains(headerItem)) {
 			headerItem.setSelectable(false);
 			headerItem.setDraggable(false);
-			int progressFix = 0;//(headerItem == mProgressItem) ? mScrollableHeaders.size() : 0;
+			int progressFix = (headerItem == mTopProgressItem) ? mScrollableHeaders.size() : 0;
 			mScrollableHeaders.add(headerItem);
 			setScrollAnimate(true); //Headers will scroll animate
 			performInsert(progressFix, Collections.singletonList(headerItem), true);
@@ -1122,7 +1332,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	@NonNull
 	public List<IHeader> getHeaderItems() {
 		List<IHeader> headers = new ArrayList<>();
-		for (T item : mItems) {
+		for (T item : getMainItems()) {
 			if (isHeader(item))
 				headers.add((IHeader) item);
 		}
@@ -1525,6 +1735,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b1
 	 */
 	public FlexibleAdapter<T> showAllHeaders() {
+		checkNotLazyItems("show headers");
 		showAllHeaders(false);
 		return this;
 	}
@@ -1618,6 +1829,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b1
 	 */
 	public void hideAllHeaders() {
+		checkNotLazyItems("hide headers");
 		mHandler.post(new Runnable() {
 			@Override
 			public void run() {
@@ -1765,6 +1977,207 @@ public class FlexibleAdapter<T extends IFlexible>
 		return false;
 	}
 
+	/**
+	 * Sets the distance, in items, from the bound position at which the section items of
+	 * {@link ILazySection} headers start to load.
+	 * <p>Default value is 10 items.</p>
+	 *
+	 * @param distance the prefetch distance
+	 * @return this Adapter, so the call can be chained
+	 * @see #setLazyLoadingExecutor(Executor)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setSectionPrefetchDistance(@IntRange(from = 0) int distance) {
+		if (DEBUG) Log.i(TAG, "Set sectionPrefetchDistance=" + distance);
+		this.mSectionPrefetchDistance = Math.max(0, distance);
+		return this;
+	}
+
+	/**
+	 * @param section the lazy section to check
+	 * @return true if the section items are not loaded yet and their positions hold the
+	 * placeholder item
+	 * @since 5.0.0-rc1
+	 */
+	public boolean isSectionPending(@NonNull ILazySection section) {
+		synchronized (mSectionItems) {
+			List<T> sectionItems = mSectionItems.get(section);
+			return sectionItems != null && !sectionItems.isEmpty()
+					&& mSectionPlaceholders.containsKey(sectionItems.get(0));
+		}
+	}
+
+	/**
+	 * Inserts, after each {@link ILazySection} header not followed by its items, the items of
+	 * the section: the loaded items or, while pending, the placeholders.
+	 * <p>With {@code reserve}, the new sections are reserved with new placeholders and the
+	 * sections not in the list are forgotten: to call only in the UI Thread with the whole
+	 * data set. Otherwise only the known sections are inserted, safe in background.</p>
+	 *
+	 * @param items   the items, never modified
+	 * @param reserve true to reserve the new sections
+	 * @return the same list if no item is inserted, a new list otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private List<T> addLazySectionItems(List<T> items, boolean reserve) {
+		synchronized (mSectionItems) {
+			if (!reserve && mSectionItems.isEmpty()) return items;
+			Map<ILazySection, List<T>> sections = new IdentityHashMap<>();
+			Map<IFlexible, ILazySection> placeholders = new IdentityHashMap<>();
+			List<T> result = null;
+			for (int position = 0; position < items.size(); position++) {
+				T item = items.get(position);
+				if (result != null) result.add(item);
+				if (!(item instanceof ILazySection)) continue;
+				ILazySection section = (ILazySection) item;
+				List<T> sectionItems = mSectionItems.get(section);
+				int end = position + 1;
+				while (end < items.size() && items.get(end) instanceof ISectionable
+						&& ((ISectionable) items.get(end)).getHeader() == section)
+					end++;
+				if (end > position + 1) {
+					// Section items already in the list: the known ones are still tracked
+					if (sectionItems != null && sectionItems.contains(items.get(position + 1))) {
+						sections.put(section, sectionItems);
+						continue;
+					}
+					// Otherwise loaded by the user, or placeholders replaced after the filter
+					if (reserve || sectionItems == null) continue;
+					if (result == null) result = new ArrayList<>(items.subList(0, position + 1));
+					result.addAll(sectionItems);
+					position = end - 1;
+					continue;
+				}
+				if (sectionItems == null) {
+					if (!reserve) continue;
+					sectionItems = new ArrayList<>(section.getSectionItemsCount());
+					for (int i = 0; i < section.getSectionItemsCount(); i++) {
+						ISectionable placeholder = section.newPlaceholderSectionItem();
+						placeholder.setHeader(section);
+						placeholders.put(placeholder, section);
+						sectionItems.add((T) placeholder);
+					}
+				}
+				sections.put(section, sectionItems);
+				if (sectionItems.isEmpty()) continue;
+				if (result == null) result = new ArrayList<>(items.subList(0, position + 1));
+				result.addAll(sectionItems);
+			}
+			if (reserve) {
+				for (Map.Entry<IFlexible, ILazySection> entry : mSectionPlaceholders.entrySet()) {
+					if (sections.containsKey(entry.getValue()))
+						placeholders.put(entry.getKey(), entry.getValue());
+				}
+				mSectionItems.clear();
+				mSectionItems.putAll(sections);
+				mSectionPlaceholders.clear();
+				mSectionPlaceholders.putAll(placeholders);
+				if (DEBUG) Log.v(TAG, "Reserved positions of " + sections.size() + " lazy sections");
+			}
+			return result != null ? result : items;
+		}
+	}
+
+	/**
+	 * @param items the items to filter, never modified
+	 * @return the items without the placeholders of the pending sections
+	 */
+	private List<T> removeSectionPlaceholders(List<T> items) {
+		synchronized (mSectionItems) {
+			if (mSectionPlaceholders.isEmpty()) return items;
+			List<T> result = new ArrayList<>(items.size());
+			for (T item : items) {
+				if (!mSectionPlaceholders.containsKey(item)) result.add(item);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Loads the lazy sections of the bound position and of the positions at the prefetch
+	 * distance, if still pending.
+	 */
+	private void loadSectionsAround(int position) {
+		loadSectionOf(getItem(position));
+		loadSectionOf(getItem(position + mSectionPrefetchDistance));
+		loadSectionOf(getItem(position - mSectionPrefetchDistance));
+	}
+
+	private void loadSectionOf(T item) {
+		if (item == null) return;
+		ILazySection section = mSectionPlaceholders.get(item);
+		if (section == null && item instanceof ILazySection && isSectionPending((ILazySection) item))
+			section = (ILazySection) item;
+		if (section == null || !mSectionsLoading.add(section)) return;
+
+		if (DEBUG) Log.v(TAG, "Loading section items of " + section);
+		final ILazySection lazySection = section;
+		mLazyExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				List<T> sectionItems = null;
+				try {
+					sectionItems = lazySection.loadSectionItems();
+				} catch (Exception e) {
+					Log.e(TAG, "Unable to load section items of " + lazySection, e);
+				}
+				final List<T> loadedItems = sectionItems;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onSectionLoaded(lazySection, loadedItems);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Replaces the placeholders of the section with the section items just loaded, adjusting
+	 * the positions if the count differs.
+	 */
+	private void onSectionLoaded(ILazySection section, List<T> sectionItems) {
+		mSectionsLoading.remove(section);
+		// Section removed or data set updated in the meantime
+		if (!isSectionPending(section)) return;
+		// Loading failed: the placeholders stay and the section is loaded again when bound
+		if (sectionItems == null) return;
+
+		int start = getGlobalPositionOf(section) + 1;
+		int count = 0;
+		while (start > 0 && start + count < getItemCount()
+				&& mSectionPlaceholders.get(mItems.get(start + count)) == section)
+			count++;
+		for (T item : sectionItems) {
+			if (item instanceof ISectionable) ((ISectionable) item).setHeader(section);
+		}
+		synchronized (mSectionItems) {
+			mSectionItems.put(section, new ArrayList<>(sectionItems));
+			mSectionPlaceholders.values().removeAll(Collections.singleton(section));
+		}
+		// Placeholders not displayed (filtered out): the items are restored with the section
+		if (count == 0) {
+			addToFilterIndex(sectionItems);
+			invalidateFilterCache();
+			return;
+		}
+		int changed = Math.min(count, sectionItems.size());
+		for (int i = 0; i < changed; i++) {
+			mItems.set(start + i, sectionItems.get(i));
+		}
+		if (changed > 0) notifyItemRangeChanged(start, changed);
+		if (sectionItems.size() > count) {
+			mItems.addAll(start + count, sectionItems.subList(count, sectionItems.size()));
+			notifyItemRangeInserted(start + count, sectionItems.size() - count);
+		} else if (count > changed) {
+			mItems.subList(start + changed, start + count).clear();
+			notifyItemRangeRemoved(start + changed, count - changed);
+		}
+		addToFilterIndex(sectionItems);
+		invalidateFilterCache();
+		if (DEBUG) Log.v(TAG, "Loaded " + sectionItems.size() + " section items on position=" + start);
+	}
+
 	/*---------------------*/
 	/* VIEW HOLDER METHODS */
 	/*---------------------*/
@@ -1785,10 +2198,104 @@ public class FlexibleAdapter<T extends IFlexible>
 		T item = getItem(position);
 		// Map the view type if not done yet
 		mapViewTypeFrom(item);
-		autoMap = true;
+		if (!autoMap) {
+			autoMap = true;
+			schedulePreInflation();
+		}
 		return item.getLayoutRes();
 	}
 
+	/**
+	 * Sets the number of ViewHolders to inflate ahead of time for each mapped ViewType, so the
+	 * first scroll and the filter results introducing new ViewTypes don't inflate the layouts.
+	 * <p>ViewHolders are created with {@link #createViewHolder(ViewGroup, int)}, one at time
+	 * when the main thread is idle, and they are put in the RecycledViewPool of the
+	 * RecyclerView. When the count exceeds the default pool size, the maximum number of
+	 * recycled views of the ViewType is raised to the count.</p>
+	 * Default value is 0 (disabled).
+	 *
+	 * @param count the number of ViewHolders for each ViewType
+	 * @return this Adapter, so the call can be chained
+	 * @see #setPreInflationCount(int, int)
+	 * @see #preInflateViewHolders()
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setPreInflationCount(@IntRange(from = 0) int count) {
+		if (DEBUG) Log.i(TAG, "Set preInflationCount=" + count);
+		this.mPreInflationCount = Math.max(0, count);
+		schedulePreInflation();
+		return this;
+	}
+
+	/**
+	 * Sets the number of ViewHolders to inflate ahead of time for a specific ViewType,
+	 * overriding the count for all ViewTypes.
+	 *
+	 * @param viewType the ViewType, the layout resource of the items when AutoMap is used
+	 * @param count    the number of ViewHolders for the ViewType
+	 * @return this Adapter, so the call can be chained
+	 * @see #setPreInflationCount(int)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setPreInflationCount(@LayoutRes int viewType, @IntRange(from = 0) int count) {
+		if (DEBUG) Log.i(TAG, "Set preInflationCount=" + count + " for viewType " + viewType);
+		mPreInflationCounts.put(viewType, Math.max(0, count));
+		schedulePreInflation(viewType);
+		return this;
+	}
+
+	/**
+	 * Maps the ViewTypes of all the current items, sub items included, and schedules the
+	 * pre-inflation of their ViewHolders. Without this call, only the ViewTypes already
+	 * displayed are pre-inflated.
+	 * <p>The items of a {@link LazyItemList} are not visited.</p>
+	 *
+	 * @see #setPreInflationCount(int)
+	 * @since 5.0.0-rc1
+	 */
+	public void preInflateViewHolders() {
+		if (mLazyItems == null) mapViewTypesFrom(mItems);
+		schedulePreInflation();
+	}
+
+	private void mapViewTypesFrom(List<T> items) {
+		for (T item : items) {
+			mapViewTypeFrom(item);
+			if (item instanceof IExpandable && ((IExpandable) item).getSubItems() != null) {
+				mapViewTypesFrom(((IExpandable) item).getSubItems());
+			}
+		}
+	}
+
+	private void schedulePreInflation() {
+		for (Integer viewType : mTypeInstances.keySet()) {
+			schedulePreInflation(viewType);
+		}
+	}
+
+	/**
+	 * Queues the ViewHolders still missing for the ViewType.
+	 */
+	private void schedulePreInflation(int viewType) {
+		if (mRecyclerView == null || !mTypeInstances.containsKey(viewType)) return;
+		Integer count = mPreInflationCounts.get(viewType);
+		int target = count != null ? count : mPreInflationCount;
+		Integer scheduled = mPreInflated.get(viewType);
+		int missing = target - (scheduled != null ? scheduled : 0);
+		if (missing <= 0) return;
+		mPreInflated.put(viewType, target);
+		if (target > SharedRecycledViewPool.DEFAULT_MAX_RECYCLED_VIEWS) {
+			mRecyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, target);
+		}
+		if (mPreInflater == null) {
+			mPreInflater = new PreInflater();
+			Looper.myQueue().addIdleHandler(mPreInflater);
+		}
+		for (int i = 0; i < missing; i++) {
+			mPreInflater.viewTypes.add(viewType);
+		}
+	}
+
 	/**
 	 * You can override this method to create ViewHolder from inside the Adapter OR you can let
 	 * this method to call the implementation of {@code IFlexible#createViewHolder()} to create
@@ -1860,6 +2367,8 @@ public class FlexibleAdapter<T extends IFlexible>
 		}
 		// Bind view activation with current selection
 		super.onBindViewHolder(holder, position, payloads);
+		// ViewHolders of a shared RecycledViewPool may have been created by another Adapter
+		if (holder instanceof FlexibleViewHolder) ((FlexibleViewHolder) holder).setAdapter(this);
 		// Bind the item
 		T item = getItem(position);
 		if (item != null) {
@@ -1873,7 +2382,9 @@ public class FlexibleAdapter<T extends IFlexible>
 					holder.itemView.setVisibility(View.INVISIBLE);
 			}
 		}
-		// Endless Scroll
+		// Lazy sections and Endless Scroll
+		if (!mSectionPlaceholders.isEmpty()) loadSectionsAround(position);
+		if (mLazyItems != null) mLazyItems.loadAround(position);
 		onLoadMore(position);
 		// Scroll Animation
 		animateView(holder, position);
@@ -1905,6 +2416,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-rc1
 	 */
 	public int getEndlessCurrentPage() {
+		if (!mEndlessPages.isEmpty()) return mEndlessPages.getLast().number;
 		return Math.max(1, mEndlessPageSize > 0 ? getMainItemCount() / mEndlessPageSize : 0);
 	}
 
@@ -2067,21 +2579,27 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <br/>5.0.0-rc1 Added limits check and progressItem with Scrollable Footers
 	 */
 	protected void onLoadMore(int position) {
+		onLoadMoreTop(position);
+		int scrollThreshold = getEndlessScrollThreshold(position);
 		// Skip everything when loading more is unused OR currently loading
-		if (!isEndlessScrollEnabled() || endlessLoading)
+		int maxPending = isFilterPushdown() ? 1 : mEndlessMaxPending;
+		if (!isEndlessScrollEnabled() || mEndlessRequests.size() >= maxPending ||
+				(isFilterPushdown() && filterPageExhausted))
 			return;
 
-		// Check next loading threshold
-		int threshold = getItemCount() - mEndlessScrollThreshold - (hasSearchText() ? 0 : mScrollableFooters.size());
+		// Check next loading threshold, the pages in flight will add more items
+		int pendingItems = mEndlessRequests.size() * getEndlessExpectedPageSize();
+		int threshold = getItemCount() + pendingItems - scrollThreshold - (hasSearchText() ? 0 : mScrollableFooters.size());
 		if (position == getGlobalPositionOf(mProgressItem) || position < threshold) {
 			return;
 		} else if (DEBUG) {
-			Log.v(TAG, "onLoadMore     loading=" + endlessLoading + ", position=" + position
-					+ ", itemCount=" + getItemCount() + ", threshold=" + mEndlessScrollThreshold
-					+ ", inside the threshold? " + (position >= getItemCount() - mEndlessScrollThreshold - (hasSearchText() ? 0 : mScrollableFooters.size())));
+			Log.v(TAG, "onLoadMore     pending=" + mEndlessRequests.size() + ", position=" + position
+					+ ", itemCount=" + getItemCount() + ", threshold=" + scrollThreshold
+					+ ", inside the threshold? " + (position >= threshold));
 		}
 		// Load more if not loading and inside the threshold
-		endlessLoading = true;
+		final EndlessRequest request = new EndlessRequest(getEndlessCurrentPage() + mEndlessRequests.size() + 1);
+		mEndlessRequests.add(request);
 		// Insertion is in post, as suggested by Android because: java.lang.IllegalStateException:
 		// Cannot call notifyItemInserted while RecyclerView is computing a layout or scrolling
 		mHandler.post(new Runnable() {
@@ -2091,10 +2609,15 @@ public class FlexibleAdapter<T extends IFlexible>
 				mHandler.removeMessages(LOAD_MORE_COMPLETE);
 				// Add progressItem if not already shown
 				addScrollableFooter(mProgressItem);
+				// Filtered pages come from the data source
+				if (isFilterPushdown()) {
+					if (DEBUG) Log.d(TAG, "onLoadMore     loading filtered page, offset=" + mFilterPageOffset);
+					new FilterPageAsyncTask(mSearchText, mFilterPageOffset).execute();
+				}
 				// When the listener is not set, loading more is called upon a user request
-				if (mEndlessScrollListener != null) {
+				else if (mEndlessScrollListener != null) {
 					if (DEBUG) Log.d(TAG, "onLoadMore     invoked!");
-					mEndlessScrollListener.onLoadMore(getMainItemCount(), getEndlessCurrentPage());
+					mEndlessScrollListener.onLoadMore(getMainItemCount(), request.page - 1);
 				}
 			}
 		});
@@ -2123,24 +2646,52 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <p>A {@link #notifyItemChanged(int, Object)} with payload {@link Payload#NO_MORE_LOAD}
 	 * will be triggered on the progressItem, so you can display a message or change the views in
 	 * this item.</p>
+	 * When a search text is set, only the items of the page are filtered: the matching items
+	 * are inserted and the cached results of the search text are extended, so the whole list
+	 * doesn't need to be filtered again.
 	 *
 	 * @param newItems the list of the new items, can be empty or null
 	 * @param delay    the delay used to remove the progress item or -1 to disable the
 	 *                 loading forever and to keep the progress item visible.
+	 * @see #setEndlessIngestionExecutor(Executor)
 	 * @since 5.0.0-b8
 	 * <br/>5.0.0-rc1 Added limits check and changed progressItem to Scrollable Footer
 	 */
-	//TODO: Endless Top Scrolling
 	public void onLoadMoreComplete(@Nullable List<T> newItems, @IntRange(from = -1) long delay) {
+		checkNotLazyItems("load more items");
+		if (mEndlessIngestionExecutor != null) {
+			ingestEndlessPage(newItems, delay);
+		} else {
+			completeLoadMore(newItems, delay, null);
+		}
+	}
+
+	/**
+	 * Adds the new items, prepared in background if the ingestion is not null, and completes
+	 * the loading.
+	 */
+	private void completeLoadMore(@Nullable List<T> newItems, long delay, @Nullable EndlessIngestion ingestion) {
 		// 1. Calculate new items count
 		int newItemsSize = newItems == null ? 0 : newItems.size();
 		int totalItemCount = newItemsSize + getMainItemCount();
+		completeEndlessRequest(newItemsSize);
 		// 2. Add any new items
 		if (newItemsSize > 0) {
 			if (DEBUG)
 				Log.v(TAG, "onLoadMore     performing adding " + newItemsSize + " new items on Page=" + getEndlessCurrentPage());
-			//TODO: 0 + headers for Endless Top Scrolling
-			addItems(getGlobalPositionOf(mProgressItem), newItems);
+			if (hasSearchText() && !isFilterPushdown() && (ingestion == null ||
+					ingestion.flattened == null || !ingestion.searchText.equals(mSearchText))) {
+				// Only the new items are filtered, not the whole list
+				ingestion = new EndlessIngestion(newItems, delay, mSearchText);
+				addToFilterIndex(newItems);
+				prepareEndlessPage(ingestion);
+			}
+			if (ingestion != null && ingestion.flattened != null && ingestion.searchText.equals(mSearchText)) {
+				commitEndlessPage(ingestion);
+			} else {
+				addItems(getGlobalPositionOf(mProgressItem), newItems);
+			}
+			addEndlessPage(newItems, false);
 		}
 		// 3. Check if features are enabled and the limits have been reached
 		if (mEndlessPageSize > 0 && newItemsSize < mEndlessPageSize || // Is feature enabled and Not enough items?
@@ -2153,153 +2704,750 @@ public class FlexibleAdapter<T extends IFlexible>
 			if (DEBUG)
 				Log.v(TAG, "onLoadMore     enqueued removing progressItem (" + delay + "ms)");
 			mHandler.sendEmptyMessageDelayed(LOAD_MORE_COMPLETE, delay);
-		} else if (isEndlessScrollEnabled()) {
+		} else if (isEndlessScrollEnabled() && mEndlessRequests.isEmpty()) {
 			hideProgressItem();
 		}
-		// 5. Reset the loading status
-		endlessLoading = false;
-		// 6. Eventually notify noMoreLoad
+		// 5. Eventually notify noMoreLoad
 		if (newItemsSize == 0 || !isEndlessScrollEnabled()) {
 			noMoreLoad(newItemsSize);
 		}
+		// 6. Drop the page at the other end, if the window is full
+		if (newItemsSize > 0) trimEndlessPages(true);
 	}
 
 	/**
-	 * Called when loading more should continue.
+	 * Completes the loading of a specific page, when more pages can be loaded at the same
+	 * time: pages completed out of order are held until the previous pages are completed,
+	 * then they are added in sequence.
+	 * <p><b>Note:</b> Pages not requested, or not requested anymore (late duplicates, or pages
+	 * of the requests discarded by a reset of the page window), are ignored.</p>
+	 *
+	 * @param page     the page requested with {@link EndlessScrollListener#onLoadMore(int, int)},
+	 *                 that is {@code currentPage + 1}
+	 * @param newItems the list of the new items, can be empty or null
+	 * @see #setEndlessAdaptiveThreshold(boolean, int)
+	 * @since 5.0.0-rc1
 	 */
-	private void hideProgressItem() {
-		int positionToNotify = getGlobalPositionOf(mProgressItem);
-		if (positionToNotify >= 0) {
-			if (DEBUG) Log.v(TAG, "onLoadMore     remove progressItem");
-			removeScrollableFooter(mProgressItem);
+	public void onLoadMoreComplete(int page, @Nullable List<T> newItems) {
+		boolean requested = false;
+		for (EndlessRequest request : mEndlessRequests) requested |= request.page == page;
+		if (!requested) {
+			Log.w(TAG, "onLoadMoreComplete ignored page " + page + ": not requested");
+			return;
 		}
+		mEndlessArrivedPages.put(page, newItems);
+		completeEndlessArrivedPages();
 	}
 
 	/**
-	 * Called when no more items are loaded.
+	 * Completes, in sequence, the arrived pages following the completed requests. With the
+	 * ingestion executor a request is completed only when its page is committed: the pages
+	 * arrived in the meantime are completed at the commit.
 	 */
-	private void noMoreLoad(int newItemsSize) {
-		if (DEBUG) Log.i(TAG, "noMoreLoad!");
-		int positionToNotify = getGlobalPositionOf(mProgressItem);
-		if (positionToNotify >= 0)
-			notifyItemChanged(positionToNotify, Payload.NO_MORE_LOAD);
-		if (mEndlessScrollListener != null) {
-			mEndlessScrollListener.noMoreLoad(newItemsSize);
+	private void completeEndlessArrivedPages() {
+		while (!mEndlessRequests.isEmpty() && mEndlessArrivedPages.containsKey(mEndlessRequests.getFirst().page)) {
+			onLoadMoreComplete(mEndlessArrivedPages.remove(mEndlessRequests.getFirst().page));
 		}
 	}
 
-	/*--------------------*/
-	/* EXPANDABLE METHODS */
-	/*--------------------*/
+	/**
+	 * Sets the executor to prepare the new endless pages in background: the headers to display,
+	 * the filter of the current search text and the sub items of the items initially expanded
+	 * are computed off the main thread, then each page is committed with one notification.
+	 * Pages are always committed in the order they are completed.
+	 * <p>Default value is {@code null} (pages are added in the main thread).</p>
+	 *
+	 * @param executor the executor to prepare the pages, null to add them in the main thread
+	 * @return this Adapter, so the call can be chained
+	 * @see #onLoadMoreComplete(List, long)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setEndlessIngestionExecutor(@Nullable Executor executor) {
+		if (DEBUG) Log.i(TAG, "Set endlessIngestionExecutor=" + executor);
+		mEndlessIngestionExecutor = executor;
+		return this;
+	}
 
 	/**
-	 * @return true if {@code collapseOnExpand} is enabled, false otherwise
-	 * @since 5.0.0-b8
+	 * Prepares the page in background and commits the prepared pages in order.
 	 */
-	public boolean isAutoCollapseOnExpand() {
-		return collapseOnExpand;
+	private void ingestEndlessPage(@Nullable List<T> newItems, long delay) {
+		final EndlessIngestion ingestion = new EndlessIngestion(newItems, delay, mSearchText);
+		mEndlessIngestions.add(ingestion);
+		// An exact index must already know the items to filter them
+		if (hasSearchText() && newItems != null) addToFilterIndex(newItems);
+		if (newItems == null || newItems.isEmpty()) {
+			ingestion.prepared = true;
+			commitEndlessIngestions();
+			return;
+		}
+		mEndlessIngestionExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					prepareEndlessPage(ingestion);
+				} catch (Exception e) {
+					// The page will be added in the main thread
+					Log.e(TAG, "Unable to prepare the endless page", e);
+					ingestion.flattened = null;
+				}
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						ingestion.prepared = true;
+						commitEndlessIngestions();
+					}
+				});
+			}
+		});
+	}
+
+	private void commitEndlessIngestions() {
+		while (!mEndlessIngestions.isEmpty() && mEndlessIngestions.getFirst().prepared) {
+			EndlessIngestion ingestion = mEndlessIngestions.removeFirst();
+			completeLoadMore(ingestion.items, ingestion.delay, ingestion);
+		}
+		// The next page may have arrived while this one was prepared
+		completeEndlessArrivedPages();
 	}
 
 	/**
-	 * Automatically collapse all previous expanded parents before expand the new clicked parent.
-	 * <p>Default value is {@code false} (disabled).</p>
-	 *
-	 * @param collapseOnExpand true to collapse others items, false to just expand the current
-	 * @return this Adapter, so the call can be chained
-	 * @since 5.0.0-b1
+	 * Computes, in background, the items to insert: only the items matching the search text,
+	 * the headers if shown, and the sub items of the expanded items. Items are not modified:
+	 * the flags are applied at the commit.
+	 * <p>Only the items of the page are filtered; the search index is queried only if it's
+	 * exact, otherwise its candidates would be filtered anyway.</p>
 	 */
-	public FlexibleAdapter<T> setAutoCollapseOnExpand(boolean collapseOnExpand) {
-		if (DEBUG) Log.i(TAG, "Set autoCollapseOnExpand=" + collapseOnExpand);
-		this.collapseOnExpand = collapseOnExpand;
-		return this;
+	private void prepareEndlessPage(EndlessIngestion ingestion) {
+		List<T> flattened = new ArrayList<>();
+		List<T> matches = new ArrayList<>();
+		Set<IHeader> headers = new HashSet<>();
+		boolean filter = !ingestion.searchText.isEmpty();
+		FilterMask mask = filter ? new FilterMask() : null;
+		Set<T> candidates = filter && mFilterIndex != null && mFilterIndex.isExact() ?
+				mFilterIndex.getCandidates(ingestion.searchText) : null;
+		for (T item : ingestion.items) {
+			if (filter && !filterExpandableObject(item, ingestion.searchText, candidates, mask)) {
+				mask.setHidden(item, true);
+				continue;
+			}
+			matches.add(item);
+			if (headersShown) addIngestedHeader(flattened, item, headers);
+			flattened.add(item);
+			if (filter) {
+				addFilteredSubItems(flattened, item, mask);
+			} else if (isExpanded(item) && !(item instanceof IVirtualExpandable)) {
+				addIngestedSubItems(flattened, (IExpandable) item, headers);
+			}
+		}
+		ingestion.mask = mask;
+		ingestion.headers = headers;
+		ingestion.matches = matches;
+		ingestion.flattened = flattened;
+	}
+
+	private void addIngestedSubItems(List<T> flattened, IExpandable expandable, Set<IHeader> headers) {
+		for (T subItem : getExpandableList(expandable)) {
+			if (headersShown) addIngestedHeader(flattened, subItem, headers);
+			flattened.add(subItem);
+			if (isExpanded(subItem) && !(subItem instanceof IVirtualExpandable)) {
+				addIngestedSubItems(flattened, (IExpandable) subItem, headers);
+			}
+		}
+	}
+
+	private void addIngestedHeader(List<T> flattened, T item, Set<IHeader> headers) {
+		IHeader header = getHeaderOf(item);
+		if (header != null && getPendingRemovedItem(item) == null && headers.add(header)) {
+			flattened.add((T) header);
+		}
 	}
 
 	/**
-	 * @return true if {@code scrollOnExpand} is enabled, false otherwise
-	 * @since 5.0.0-b8
+	 * Inserts the prepared page before the progress item with one notification.
 	 */
-	public boolean isAutoScrollOnExpand() {
-		return scrollOnExpand;
+	private void commitEndlessPage(EndlessIngestion ingestion) {
+		if (ingestion.mask != null) ingestion.mask.apply();
+		// Headers already displayed by the previous pages are not inserted again
+		for (IHeader header : ingestion.headers) {
+			if (getGlobalPositionOf(header) >= 0) {
+				ingestion.flattened.remove(header);
+			} else {
+				header.setHidden(false);
+			}
+		}
+		int initialCount = getMainItemCount();
+		int position = getGlobalPositionOf(mProgressItem);
+		if (position < 0) position = getItemCount() - mScrollableFooters.size();
+		if (DEBUG)
+			Log.v(TAG, "onLoadMore     committing " + ingestion.flattened.size() + " prepared items on position=" + position);
+		performInsert(position, ingestion.flattened, true);
+		addToFilterIndex(ingestion.items);
+		if (ingestion.searchText.isEmpty()) {
+			invalidateFilterCache();
+		} else {
+			appendFilterResults(ingestion.searchText, ingestion.matches, ingestion.items.size());
+		}
+		if (mUpdateListener != null && initialCount == 0 && getItemCount() > 0)
+			mUpdateListener.onUpdateEmptyView(getMainItemCount());
 	}
 
 	/**
-	 * Automatically scroll the clicked expandable item to the first visible position.<br/>
-	 * <p>Default value is {@code false} (disabled).</p>
-	 * This works ONLY in combination with {@link SmoothScrollLinearLayoutManager} or with
-	 * {@link SmoothScrollGridLayoutManager}.
+	 * Enables the adaptive threshold: the loading starts when the time to reach the end of the
+	 * list, estimated from the bind velocity, is shorter than the measured time to load a page,
+	 * so the user doesn't reach the progress item on fast flings. The threshold set with
+	 * {@link #setEndlessScrollThreshold(int)} remains the minimum.
+	 * <p>More pages can be requested while the previous are still loading: each request receives
+	 * the next page number. Complete them with {@link #onLoadMoreComplete(int, List)} if the
+	 * responses can arrive out of order.</p>
+	 * Default value is {@code false}, with 1 page at the time.
 	 *
-	 * @param scrollOnExpand true to enable automatic scroll, false to disable
+	 * @param adaptive        true to adapt the threshold to the scroll velocity
+	 * @param maxPendingPages the maximum number of the pages loading at the same time
 	 * @return this Adapter, so the call can be chained
-	 * @since 5.0.0-b1
+	 * @since 5.0.0-rc1
 	 */
-	public FlexibleAdapter<T> setAutoScrollOnExpand(boolean scrollOnExpand) {
-		if (DEBUG) Log.i(TAG, "Set setAutoScrollOnExpand=" + scrollOnExpand);
-		this.scrollOnExpand = scrollOnExpand;
+	public FlexibleAdapter<T> setEndlessAdaptiveThreshold(boolean adaptive,
+														  @IntRange(from = 1) int maxPendingPages) {
+		if (DEBUG) Log.i(TAG, "Set endlessAdaptive=" + adaptive + " maxPendingPages=" + maxPendingPages);
+		endlessAdaptive = adaptive;
+		mEndlessMaxPending = Math.max(1, maxPendingPages);
+		mEndlessVelocity = 0f;
+		mEndlessLastPosition = -1;
 		return this;
 	}
 
 	/**
-	 * @param position the position of the item to check
-	 * @return true if the item implements {@link IExpandable} interface and its property has
-	 * {@code expanded = true}
-	 * @since 5.0.0-b1
+	 * Updates the bind velocity and computes the threshold to hide the page latency.
+	 *
+	 * @return the number of the items before the end to start loading
 	 */
-	public boolean isExpanded(@IntRange(from = 0) int position) {
-		return isExpanded(getItem(position));
+	private int getEndlessScrollThreshold(int position) {
+		if (!endlessAdaptive) return mEndlessScrollThreshold;
+		long now = System.currentTimeMillis();
+		if (mEndlessLastPosition >= 0 && now > mEndlessLastBindTime) {
+			// Only scrolling down brings closer to the end
+			float velocity = Math.max(0, position - mEndlessLastPosition) / (float) (now - mEndlessLastBindTime);
+			mEndlessVelocity += (velocity - mEndlessVelocity) * ENDLESS_AVERAGE_WEIGHT;
+		}
+		if (now > mEndlessLastBindTime) {
+			mEndlessLastPosition = position;
+			mEndlessLastBindTime = now;
+		}
+		int adaptiveThreshold = (int) Math.ceil(mEndlessVelocity * mEndlessLatency * ENDLESS_ADAPTIVE_SAFETY);
+		int maxThreshold = Math.max(mEndlessScrollThreshold, getEndlessExpectedPageSize() * mEndlessMaxPending);
+		return Math.max(mEndlessScrollThreshold, Math.min(adaptiveThreshold, maxThreshold));
 	}
 
 	/**
-	 * @param item the item to check
-	 * @return true if the item implements {@link IExpandable} interface and its property has
-	 * {@code expanded = true}
-	 * @since 5.0.0-b1
+	 * @return the size of the next page, the page size limit if set or the last page size
 	 */
-	public boolean isExpanded(@NonNull T item) {
-		if (isExpandable(item)) {
-			IExpandable expandable = (IExpandable) item;
-			return expandable.isExpanded();
-		}
-		return false;
+	private int getEndlessExpectedPageSize() {
+		if (mEndlessPageSize > 0) return mEndlessPageSize;
+		return mEndlessLastPageSize > 0 ? mEndlessLastPageSize : mEndlessScrollThreshold;
 	}
 
 	/**
-	 * @param item the item to check
-	 * @return true if the item implements {@link IExpandable} interface, false otherwise
-	 * @since 5.0.0-b1
+	 * Completes the oldest request in flight, measuring the page latency.
 	 */
-	public boolean isExpandable(@NonNull T item) {
-		return item != null && item instanceof IExpandable;
+	private void completeEndlessRequest(int newItemsSize) {
+		EndlessRequest request = mEndlessRequests.poll();
+		if (newItemsSize > 0) mEndlessLastPageSize = newItemsSize;
+		if (request == null) return;
+		long latency = System.currentTimeMillis() - request.time;
+		mEndlessLatency = mEndlessLatency == 0 ? latency :
+				mEndlessLatency + (latency - mEndlessLatency) * ENDLESS_AVERAGE_WEIGHT;
+		if (DEBUG) Log.v(TAG, "onLoadMore     page " + request.page + " loaded in " + latency + "ms, average=" + (int) mEndlessLatency + "ms");
 	}
 
 	/**
-	 * @return the level of the minimum collapsible level used in MultiLevel expandable
-	 * @since 5.0.0-b6
+	 * @return true if the items can be loaded also at the top
+	 * @see #setEndlessTopScrollListener(EndlessTopScrollListener, IFlexible)
+	 * @since 5.0.0-rc1
 	 */
-	public int getMinCollapsibleLevel() {
-		return mMinCollapsibleLevel;
+	public boolean isEndlessTopScrollEnabled() {
+		return endlessTopScrollEnabled;
 	}
 
 	/**
-	 * Sets the minimum level which all sub expandable items will be collapsed too.
-	 * <p>Default value is {@link #mMinCollapsibleLevel} (All levels including 0).</p>
+	 * Sets the progressItem to be displayed at the top of the list and the callback to load
+	 * asynchronously the items preceding the first displayed item, for instance older messages
+	 * or newer posts.
+	 * <p>The progress item is displayed after the Scrollable Headers when the top item is
+	 * bound within the endless threshold. Complete the loading with
+	 * {@link #onLoadMoreTopComplete(List)}: the new items are inserted before the first main
+	 * item and the scroll position is kept, so the content doesn't jump.</p>
 	 *
-	 * @param minCollapsibleLevel the minimum level to auto-collapse sub expandable items
+	 * @param endlessTopScrollListener the callback to invoke the asynchronous loading, null
+	 *                                 to disable the loading at the top
+	 * @param topProgressItem          the item representing the progress bar at the top
 	 * @return this Adapter, so the call can be chained
-	 * @since 5.0.0-b6
+	 * @see #setEndlessPageWindow(int)
+	 * @since 5.0.0-rc1
 	 */
-	public FlexibleAdapter<T> setMinCollapsibleLevel(int minCollapsibleLevel) {
-		if (DEBUG) Log.i(TAG, "Set minCollapsibleLevel=" + minCollapsibleLevel);
-		this.mMinCollapsibleLevel = minCollapsibleLevel;
+	public FlexibleAdapter<T> setEndlessTopScrollListener(@Nullable EndlessTopScrollListener endlessTopScrollListener,
+													   @NonNull T topProgressItem) {
+		if (DEBUG) Log.i(TAG, "Set endlessTopScrollListener=" + endlessTopScrollListener);
+		mEndlessTopScrollListener = endlessTopScrollListener;
+		mTopProgressItem = topProgressItem;
+		endlessTopScrollEnabled = endlessTopScrollListener != null;
 		return this;
 	}
 
 	/**
-	 * Utility method to check if the expandable item has sub items.
+	 * Sets the maximum number of the endless pages kept in the list. When a new page is
+	 * loaded and the window is full, the page at the opposite end, the farthest from the
+	 * viewport, is removed; it will be loaded again by the corresponding endless listener when
+	 * the user scrolls back, so the memory stays flat also for very long feeds.
+	 * <p>The initial items are the first page. Pages at the top are dropped only if the
+	 * {@link EndlessTopScrollListener} is set, pages at the bottom only if the progressItem is
+	 * set. The page numbers are passed to the listeners to know which page to load again.</p>
+	 * Default value is {@code 0} (pages are never removed).
 	 *
-	 * @param expandable the {@link IExpandable} object
-	 * @return true if the expandable has subItems, false otherwise
-	 * @since 5.0.0-b1
-	 */
+	 * @param maxPages the maximum number of the pages, 0 to disable
+	 * @return this Adapter, so the call can be chained
+	 * @see #getEndlessCurrentPage()
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setEndlessPageWindow(@IntRange(from = 0) int maxPages) {
+		if (DEBUG) Log.i(TAG, "Set endlessPageWindow=" + maxPages);
+		mEndlessPageWindow = Math.max(0, maxPages);
+		if (mEndlessPageWindow == 0) mEndlessPages.clear();
+		return this;
+	}
+
+	/**
+	 * @return the number of the first endless page displayed at the top
+	 * @since 5.0.0-rc1
+	 */
+	public int getEndlessFirstPage() {
+		return mEndlessPages.isEmpty() ? 1 : mEndlessPages.getFirst().number;
+	}
+
+	/**
+	 * Checks if the items at the top should be loaded.
+	 */
+	private void onLoadMoreTop(int position) {
+		if (!endlessTopScrollEnabled || endlessTopLoading) return;
+		int threshold = mScrollableHeaders.size() + mEndlessScrollThreshold;
+		if (position == getGlobalPositionOf(mTopProgressItem) || position >= threshold) return;
+		if (DEBUG) Log.v(TAG, "onLoadMoreTop  position=" + position + ", threshold=" + threshold);
+		endlessTopLoading = true;
+		mHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				addScrollableHeader(mTopProgressItem);
+				if (DEBUG) Log.d(TAG, "onLoadMoreTop  invoked!");
+				mEndlessTopScrollListener.onLoadMoreTop(getEndlessFirstPage());
+			}
+		});
+	}
+
+	/**
+	 * To call when the items at the top are loaded: the items are inserted before the first
+	 * main item and the scroll position is kept.
+	 * <p>Pass an empty list or null when there are no more items at the top: the loading at
+	 * the top is disabled until a page is removed by the window or the listener is set again.</p>
+	 *
+	 * @param newItems the list of the new items, can be empty or null
+	 * @see #setEndlessTopScrollListener(EndlessTopScrollListener, IFlexible)
+	 * @since 5.0.0-rc1
+	 */
+	public void onLoadMoreTopComplete(@Nullable List<T> newItems) {
+		int newItemsSize = newItems == null ? 0 : newItems.size();
+		ScrollAnchor anchor = new ScrollAnchor();
+		removeScrollableHeader(mTopProgressItem);
+		if (newItemsSize > 0) {
+			if (DEBUG) Log.v(TAG, "onLoadMoreTop  performing adding " + newItemsSize + " new items");
+			addItems(mScrollableHeaders.size(), newItems);
+			addEndlessPage(newItems, true);
+		} else {
+			if (DEBUG) Log.i(TAG, "noMoreLoad at the top!");
+			endlessTopScrollEnabled = false;
+		}
+		anchor.restore();
+		endlessTopLoading = false;
+		if (newItemsSize > 0) trimEndlessPages(false);
+	}
+
+	/**
+	 * Tracks a new endless page, the initial items are the first page.
+	 */
+	private void addEndlessPage(List<T> items, boolean top) {
+		if (mEndlessPageWindow == 0) return;
+		if (mEndlessPages.isEmpty()) {
+			List<T> initialItems = new ArrayList<>(getMainItems());
+			initialItems.removeAll(items);
+			initialItems.removeAll(mScrollableHeaders);
+			initialItems.removeAll(mScrollableFooters);
+			if (!initialItems.isEmpty()) mEndlessPages.add(new EndlessPage(1, initialItems));
+		}
+		if (mEndlessPages.isEmpty()) {
+			mEndlessPages.add(new EndlessPage(1, new ArrayList<>(items)));
+		} else if (top) {
+			mEndlessPages.addFirst(new EndlessPage(mEndlessPages.getFirst().number - 1, new ArrayList<>(items)));
+		} else {
+			mEndlessPages.addLast(new EndlessPage(mEndlessPages.getLast().number + 1, new ArrayList<>(items)));
+		}
+	}
+
+	/**
+	 * Removes the pages exceeding the window at the opposite end of the page just loaded.
+	 * A page is forgotten only when its range is resolved: if none of its items is displayed,
+	 * it stays tracked and the trimming stops.
+	 *
+	 * @param fromTop true to remove the pages at the top, false at the bottom
+	 */
+	private void trimEndlessPages(boolean fromTop) {
+		if (mEndlessPageWindow == 0) return;
+		if (fromTop ? mEndlessTopScrollListener == null : mProgressItem == null) return;
+		while (mEndlessPages.size() > mEndlessPageWindow) {
+			if (fromTop) {
+				// The page ends where the next page starts
+				int start = mScrollableHeaders.size();
+				int end = getFirstEndlessPosition(mEndlessPages.get(1));
+				if (end <= start) return;
+				// The header of the next page is kept, also when displayed inside this page
+				IHeader header = getHeaderOf(getItem(end));
+				EndlessPage page = mEndlessPages.removeFirst();
+				removeEndlessPage(page, start, end, getGlobalPositionOf(header));
+				endlessTopScrollEnabled = true;
+			} else {
+				int start = getFirstEndlessPosition(mEndlessPages.getLast());
+				int end = getItemCount() - mScrollableFooters.size();
+				if (start < 0 || end <= start) return;
+				IHeader header = getHeaderOf(getItem(start));
+				if (header != null && start > 0 && header.equals(getItem(start - 1))) start--;
+				EndlessPage page = mEndlessPages.removeLast();
+				removeEndlessPage(page, start, end, -1);
+				if (!isEndlessScrollEnabled()) setEndlessProgressItem(mProgressItem);
+			}
+		}
+	}
+
+	/**
+	 * @return the position of the first displayed item of the page, -1 if none is displayed
+	 */
+	private int getFirstEndlessPosition(EndlessPage page) {
+		for (T item : page.items) {
+			int position = getGlobalPositionOf(item);
+			if (position >= 0) return position;
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the range of a page with its headers and sub items, keeping the scroll position.
+	 *
+	 * @param keep position inside the range not to remove, -1 to remove all the range
+	 */
+	private void removeEndlessPage(EndlessPage page, int start, int end, int keep) {
+		if (DEBUG) Log.d(TAG, "Dropping endless page " + page.number + " positions " + start + "-" + end);
+		ScrollAnchor anchor = new ScrollAnchor();
+		if (keep < start || keep >= end) keep = end;
+		if (end > keep + 1) {
+			mItems.subList(keep + 1, end).clear();
+			notifyItemRangeRemoved(keep + 1, end - keep - 1);
+		}
+		if (keep > start) {
+			mItems.subList(start, keep).clear();
+			notifyItemRangeRemoved(start, keep - start);
+		}
+		removeFromFilterIndex(page.items);
+		invalidateFilterCache();
+		anchor.restore();
+	}
+
+	/**
+	 * Called when loading more should continue.
+	 */
+	private void hideProgressItem() {
+		int positionToNotify = getGlobalPositionOf(mProgressItem);
+		if (positionToNotify >= 0) {
+			if (DEBUG) Log.v(TAG, "onLoadMore     remove progressItem");
+			removeScrollableFooter(mProgressItem);
+		}
+	}
+
+	/**
+	 * Called when no more items are loaded.
+	 */
+	private void noMoreLoad(int newItemsSize) {
+		if (DEBUG) Log.i(TAG, "noMoreLoad!");
+		int positionToNotify = getGlobalPositionOf(mProgressItem);
+		if (positionToNotify >= 0)
+			notifyItemChanged(positionToNotify, Payload.NO_MORE_LOAD);
+		if (mEndlessScrollListener != null) {
+			mEndlessScrollListener.noMoreLoad(newItemsSize);
+		}
+	}
+
+	/**
+	 * @return the items materialized on demand, null if not set
+	 * @since 5.0.0-rc1
+	 */
+	public LazyItemList<T> getLazyItems() {
+		return mLazyItems;
+	}
+
+	/**
+	 * Displays the items materialized on demand by the {@link LazyItemList}: while binding,
+	 * the list prepares the items around the bound position and it notifies this Adapter when
+	 * they change. The memory stays bounded by the list, regardless of how far the user scrolls.
+	 * <ul>
+	 * <li>{@link eu.davidea.flexibleadapter.paging.PagedItemList} loads the items in pages
+	 * and the positions not loaded yet display its placeholder. This is an alternative to the
+	 * Endless Scroll: the progress item is not needed. Filtering loads the pages of the
+	 * matching items from the {@link #setFilterDataSource(FilterDataSource, int) data source}.</li>
+	 * <li>{@link eu.davidea.flexibleadapter.paging.CursorItemList} maps the rows of a Cursor
+	 * within a sliding window of items, filtering is done by querying a new Cursor.</li>
+	 * <li>{@link eu.davidea.flexibleadapter.paging.MappedItemList} binds the fixed layout
+	 * records of a memory mapped file to a pool of flyweight items, filtering scans the records
+	 * without creating objects.</li>
+	 * </ul>
+	 * <b>Note:</b> The list is read only: the methods that add, remove, move or expand items
+	 * throw {@link IllegalStateException} and Scrollable Headers and Footers are not displayed.
+	 * {@link #filterItems(List)} delegates to {@link LazyItemList#filter(String)} with the
+	 * current search text, the list passed is ignored. Selection is by position and it is
+	 * cleared when the list notifies a new data set. Setting a new data set with
+	 * {@link #updateDataSet(List)} detaches the list, without animations.
+	 *
+	 * @param lazyItems the lazy list
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setLazyItems(@NonNull LazyItemList<T> lazyItems) {
+		if (DEBUG) Log.i(TAG, "Set lazyItems=" + lazyItems.size() + " items");
+		detachLazyItems();
+		resetVirtualGroups();
+		resetLazyExpandables();
+		mLazyItems = lazyItems;
+		mItems = lazyItems;
+		if (mFilterIndex != null) mFilterIndex.clear();
+		invalidateFilterCache();
+		lazyItems.setCallback(new LazyItemList.Callback() {
+			@Override
+			public void onItemRangeChanged(int positionStart, int itemCount) {
+				notifyItemRangeChanged(positionStart, itemCount);
+			}
+
+			@Override
+			public void onItemRangeInserted(int positionStart, int itemCount) {
+				notifyItemRangeInserted(positionStart, itemCount);
+			}
+
+			@Override
+			public void onDataSetChanged() {
+				// Positions of the new data set don't refer to the selected items anymore
+				clearSelection();
+				notifyDataSetChanged();
+				if (mUpdateListener != null) mUpdateListener.onUpdateEmptyView(getMainItemCount());
+			}
+		});
+		notifyDataSetChanged();
+		lazyItems.loadAround(0);
+		if (mUpdateListener != null) mUpdateListener.onUpdateEmptyView(getMainItemCount());
+		return this;
+	}
+
+	private void detachLazyItems() {
+		if (mLazyItems != null) {
+			mLazyItems.setCallback(null);
+			mLazyItems = null;
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException if the items are a read only {@link LazyItemList}
+	 */
+	private void checkNotLazyItems(String operation) {
+		if (mLazyItems != null) {
+			throw new IllegalStateException("Cannot " + operation + ": the items are a read only " +
+					getClassName(mLazyItems) + ", set a new data set with updateDataSet() first");
+		}
+	}
+
+	/*--------------------*/
+	/* EXPANDABLE METHODS */
+	/*--------------------*/
+
+	/**
+	 * @return true if {@code collapseOnExpand} is enabled, false otherwise
+	 * @since 5.0.0-b8
+	 */
+	public boolean isAutoCollapseOnExpand() {
+		return collapseOnExpand;
+	}
+
+	/**
+	 * Automatically collapse all previous expanded parents before expand the new clicked parent.
+	 * <p>Default value is {@code false} (disabled).</p>
+	 *
+	 * @param collapseOnExpand true to collapse others items, false to just expand the current
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-b1
+	 */
+	public FlexibleAdapter<T> setAutoCollapseOnExpand(boolean collapseOnExpand) {
+		if (DEBUG) Log.i(TAG, "Set autoCollapseOnExpand=" + collapseOnExpand);
+		this.collapseOnExpand = collapseOnExpand;
+		return this;
+	}
+
+	/**
+	 * @return true if {@code scrollOnExpand} is enabled, false otherwise
+	 * @since 5.0.0-b8
+	 */
+	public boolean isAutoScrollOnExpand() {
+		return scrollOnExpand;
+	}
+
+	/**
+	 * Automatically scroll the clicked expandable item to the first visible position.<br/>
+	 * <p>Default value is {@code false} (disabled).</p>
+	 * This works ONLY in combination with {@link SmoothScrollLinearLayoutManager} or with
+	 * {@link SmoothScrollGridLayoutManager}.
+	 *
+	 * @param scrollOnExpand true to enable automatic scroll, false to disable
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-b1
+	 */
+	public FlexibleAdapter<T> setAutoScrollOnExpand(boolean scrollOnExpand) {
+		if (DEBUG) Log.i(TAG, "Set setAutoScrollOnExpand=" + scrollOnExpand);
+		this.scrollOnExpand = scrollOnExpand;
+		return this;
+	}
+
+	/**
+	 * @param position the position of the item to check
+	 * @return true if the item implements {@link IExpandable} interface and its property has
+	 * {@code expanded = true}
+	 * @since 5.0.0-b1
+	 */
+	public boolean isExpanded(@IntRange(from = 0) int position) {
+		return isExpanded(getItem(position));
+	}
+
+	/**
+	 * @param item the item to check
+	 * @return true if the item implements {@link IExpandable} interface and its property has
+	 * {@code expanded = true}
+	 * @since 5.0.0-b1
+	 */
+	public boolean isExpanded(@NonNull T item) {
+		if (isExpandable(item)) {
+			IExpandable expandable = (IExpandable) item;
+			return expandable.isExpanded();
+		}
+		return false;
+	}
+
+	/**
+	 * @param item the item to check
+	 * @return true if the item implements {@link IExpandable} interface, false otherwise
+	 * @since 5.0.0-b1
+	 */
+	public boolean isExpandable(@NonNull T item) {
+		return item != null && item instanceof IExpandable;
+	}
+
+	/**
+	 * @return the level of the minimum collapsible level used in MultiLevel expandable
+	 * @since 5.0.0-b6
+	 */
+	public int getMinCollapsibleLevel() {
+		return mMinCollapsibleLevel;
+	}
+
+	/**
+	 * Sets the minimum level which all sub expandable items will be collapsed too.
+	 * <p>Default value is {@link #mMinCollapsibleLevel} (All levels including 0).</p>
+	 *
+	 * @param minCollapsibleLevel the minimum level to auto-collapse sub expandable items
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-b6
+	 */
+	public FlexibleAdapter<T> setMinCollapsibleLevel(int minCollapsibleLevel) {
+		if (DEBUG) Log.i(TAG, "Set minCollapsibleLevel=" + minCollapsibleLevel);
+		this.mMinCollapsibleLevel = minCollapsibleLevel;
+		return this;
+	}
+
+	/**
+	 * Sets the Executor on which the sub items of {@link ILazyExpandable} items and the section
+	 * items of {@link ILazySection} headers are loaded.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the executor that runs {@link ILazyExpandable#loadSubItems()} and
+	 *                 {@link ILazySection#loadSectionItems()}
+	 * @return this Adapter, so the call can be chained
+	 * @see #setLazyCacheSize(int)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setLazyLoadingExecutor(@NonNull Executor executor) {
+		if (DEBUG) Log.i(TAG, "Set lazyLoadingExecutor=" + getClassName(executor));
+		this.mLazyExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of {@link ILazyExpandable} items that keep their sub items loaded.
+	 * <p>When the limit is exceeded, the least recently expanded items that are collapsed are
+	 * unloaded with {@link ILazyExpandable#setLoadedSubItems(List)} and their sub items will be
+	 * loaded again at the next expansion. Expanded items are never unloaded.</p>
+	 * Default value is {@value LAZY_CACHE_SIZE} items.
+	 *
+	 * @param cacheSize the maximum number of loaded lazy expandable items
+	 * @return this Adapter, so the call can be chained
+	 * @see #setLazyLoadingExecutor(Executor)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setLazyCacheSize(@IntRange(from = 0) int cacheSize) {
+		if (DEBUG) Log.i(TAG, "Set lazyCacheSize=" + cacheSize);
+		this.mLazyCacheSize = cacheSize;
+		trimLazyCache();
+		return this;
+	}
+
+	/**
+	 * @param expandable the expandable item to check
+	 * @return true if the sub items of the lazy expandable item are currently loading
+	 * @since 5.0.0-rc1
+	 */
+	public boolean isLoadingSubItems(@NonNull IExpandable expandable) {
+		return mLazyLoading.contains(expandable);
+	}
+
+	/**
+	 * Sets the window of the sub items retrieved for each expanded {@link IVirtualExpandable}
+	 * item: the sub items are not stored in the list of the Adapter, but retrieved by pages when
+	 * their positions are requested, and the least recently used pages are released when more
+	 * than {@code maxPages} are retrieved.
+	 * <p>Default values are 50 sub items per page and 4 pages.</p>
+	 * <b>Note:</b> The visible items should not exceed {@code pageSize * (maxPages - 1)},
+	 * otherwise the same pages are retrieved again while scrolling.
+	 *
+	 * @param pageSize the number of sub items retrieved together
+	 * @param maxPages the maximum number of pages retained for each virtual expandable
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setVirtualSubItemsWindow(@IntRange(from = 1) int pageSize,
+													   @IntRange(from = 2) int maxPages) {
+		if (DEBUG) Log.i(TAG, "Set virtualSubItemsWindow pageSize=" + pageSize + " maxPages=" + maxPages);
+		this.mVirtualPageSize = Math.max(1, pageSize);
+		this.mVirtualMaxPages = Math.max(2, maxPages);
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		if (virtualItems != null) virtualItems.setWindow(mVirtualPageSize, mVirtualMaxPages);
+		return this;
+	}
+
+	/**
+	 * Utility method to check if the expandable item has sub items.
+	 *
+	 * @param expandable the {@link IExpandable} object
+	 * @return true if the expandable has subItems, false otherwise
+	 * @since 5.0.0-b1
+	 */
 	public boolean hasSubItems(@NonNull IExpandable expandable) {
 		return expandable != null && expandable.getSubItems() != null &&
 				expandable.getSubItems().size() > 0;
@@ -2314,7 +3462,39 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b1
 	 */
 	public IExpandable getExpandableOf(@IntRange(from = 0) int position) {
-		return getExpandableOf(getItem(position));
+		int parentPosition = getExpandablePositionOf(position);
+		return parentPosition >= 0 ? (IExpandable) mItems.get(parentPosition) : null;
+	}
+
+	/**
+	 * Retrieves the parent position of the child at the provided position.
+	 * <p>Only for a real child of an expanded parent.</p>
+	 * The search goes backward from the child, so it's faster than
+	 * {@link #getExpandablePositionOf(IFlexible)}.
+	 *
+	 * @param position the position of the child item
+	 * @return the parent position of this child item or -1 if not found
+	 * @see #getExpandableOf(int)
+	 * @since 5.0.0-rc1
+	 */
+	public int getExpandablePositionOf(@IntRange(from = 0) int position) {
+		T child = getItem(position);
+		if (child == null || child.isHidden()) return -1;
+		int virtualParentPosition = getVirtualParentPosition(position);
+		if (virtualParentPosition >= 0) return virtualParentPosition;
+		for (int i = position - 1; i >= 0; i--) {
+			// Skip the virtual sub items without retrieving them
+			virtualParentPosition = getVirtualParentPosition(i);
+			if (virtualParentPosition >= 0) i = virtualParentPosition;
+			T item = mItems.get(i);
+			if (isExpanded(item)) {
+				IExpandable expandable = (IExpandable) item;
+				if (hasSubItems(expandable) && expandable.getSubItems().contains(child)) {
+					return i;
+				}
+			}
+		}
+		return -1;
 	}
 
 	/**
@@ -2328,7 +3508,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b1
 	 */
 	public IExpandable getExpandableOf(@NonNull T child) {
-		for (T parent : mItems) {
+		for (T parent : getMainItems()) {
 			if (isExpandable(parent)) {
 				IExpandable expandable = (IExpandable) parent;
 				if (expandable.isExpanded() && hasSubItems(expandable)) {
@@ -2416,7 +3596,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	@NonNull
 	public List<T> getExpandedItems() {
 		List<T> expandedItems = new ArrayList<>();
-		for (T item : mItems) {
+		for (T item : getMainItems()) {
 			if (isExpanded(item))
 				expandedItems.add(item);
 		}
@@ -2498,9 +3678,14 @@ public class FlexibleAdapter<T extends IFlexible>
 	private int expand(int position, boolean expandAll, boolean init) {
 		T item = getItem(position);
 		if (!isExpandable(item)) return 0;
+		checkNotLazyItems("expand items");
 
 		IExpandable expandable = (IExpandable) item;
-		if (!hasSubItems(expandable)) {
+		boolean lazy = expandable instanceof ILazyExpandable &&
+				!((ILazyExpandable) expandable).isSubItemsLoaded();
+		boolean virtual = expandable instanceof IVirtualExpandable &&
+				((IVirtualExpandable) expandable).getVirtualSubItemsCount() > 0;
+		if (!lazy && !virtual && !hasSubItems(expandable)) {
 			expandable.setExpanded(false);//clear the expanded flag
 			if (DEBUG)
 				Log.w(TAG, "No subItems to Expand on position " + position +
@@ -2510,11 +3695,15 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (DEBUG && !init && !expandAll) {
 			Log.v(TAG, "Request to Expand on position=" + position +
 					" expanded=" + expandable.isExpanded() +
-					" anyParentSelected=" + parentSelected);
+					" anyParentSelected=" + isAnyParentSelected());
 		}
 		int subItemsCount = 0;
+		// Virtual sub items not anymore in the list (the list has been replaced)
+		if (virtual && expandable.isExpanded() && getVirtualSubItemsCount(expandable) < 0) {
+			expandable.setExpanded(false);
+		}
 		if (init || !expandable.isExpanded() &&
-				(!parentSelected || expandable.getExpansionLevel() <= mSelectedLevel)) {
+				(!isAnyParentSelected() || expandable.getExpansionLevel() <= mSelectedLevel)) {
 
 			// Collapse others expandable if configured so Skip when expanding all is requested
 			// Fetch again the new position after collapsing all!!
@@ -2522,6 +3711,12 @@ public class FlexibleAdapter<T extends IFlexible>
 				position = getGlobalPositionOf(item);
 			}
 
+			// Sub items not yet loaded: display the loading item meanwhile
+			if (lazy) return loadSubItems(position, (ILazyExpandable) expandable);
+			// Sub items are materialized by pages when displayed
+			if (virtual) return expandVirtual(position, (IVirtualExpandable) expandable);
+			if (expandable instanceof ILazyExpandable) mLazyLoaded.get(expandable);//Refresh access order
+
 			// Every time an expansion is requested, subItems must be taken from the
 			// original Object and without the subItems marked hidden (removed)
 			List<T> subItems = getExpandableList(expandable);
@@ -2558,16 +3753,259 @@ public class FlexibleAdapter<T extends IFlexible>
 		return subItemsCount;
 	}
 
-	private boolean expandSHF(List<T> scrollables, IExpandable expandable) {
-		int index = scrollables.indexOf(expandable);
-		if (index >= 0) {
-			if (index + 1 < scrollables.size()) {
-				return scrollables.addAll(index + 1, expandable.getSubItems());
-			} else {
-				return scrollables.addAll(expandable.getSubItems());
+	private boolean expandSHF(List<T> scrollables, IExpandable expandable) {
+		int index = scrollables.indexOf(expandable);
+		if (index >= 0) {
+			if (index + 1 < scrollables.size()) {
+				return scrollables.addAll(index + 1, expandable.getSubItems());
+			} else {
+				return scrollables.addAll(expandable.getSubItems());
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Displays the loading item and loads the sub items in background.
+	 *
+	 * @return 1 if the loading item has been inserted, 0 otherwise
+	 */
+	private int loadSubItems(int position, final ILazyExpandable expandable) {
+		T loadingItem = (T) expandable.getLoadingSubItem();
+		expandable.setExpanded(true);
+		if (loadingItem != null) {
+			mItems.add(position + 1, loadingItem);
+			notifyItemInserted(position + 1);
+		}
+		// Same item expanded again while still loading
+		if (!mLazyLoading.add(expandable)) return loadingItem != null ? 1 : 0;
+
+		if (DEBUG) Log.v(TAG, "Loading subItems of position=" + position);
+		mLazyExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				List<T> subItems = null;
+				try {
+					subItems = expandable.loadSubItems();
+				} catch (Exception e) {
+					Log.e(TAG, "Unable to load subItems of " + expandable, e);
+				}
+				final List<T> loadedItems = subItems;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onSubItemsLoaded(expandable, loadedItems);
+					}
+				});
+			}
+		});
+		return loadingItem != null ? 1 : 0;
+	}
+
+	/**
+	 * Replaces the loading item with the sub items just loaded, if the item is still expanded.
+	 */
+	private void onSubItemsLoaded(ILazyExpandable expandable, List<T> subItems) {
+		boolean loading = mLazyLoading.remove(expandable);
+		int position = getGlobalPositionOf(expandable);
+		if (!loading) {
+			// Data set replaced in the meantime: the sub items will be loaded again if needed
+			if (position < 0) {
+				expandable.setExpanded(false);
+				return;
+			}
+			// Still displayed: complete it, unless a new load is running or done
+			if (mLazyLoading.contains(expandable) || mLazyLoaded.containsKey(expandable)) return;
+		}
+		boolean expanded = expandable.isExpanded() && position >= 0;
+		if (subItems == null) {
+			// Loading failed: restore the collapsed status
+			removeLoadingSubItem(expandable);
+			expandable.setExpanded(false);
+			if (expanded) notifyItemChanged(position, Payload.COLLAPSED);
+			return;
+		}
+		expandable.setLoadedSubItems(subItems);
+		mLazyLoaded.put(expandable, true);
+		if (mFilterIndex != null && mFilterIndex.contains((T) expandable)) {
+			mFilterIndex.update((T) expandable);
+		}
+		if (DEBUG) Log.v(TAG, "Loaded " + subItems.size() + " subItems of position=" + position);
+		if (expanded) {
+			replaceLoadingSubItem(position, expandable);
+		} else {
+			removeLoadingSubItem(expandable);
+			expandable.setExpanded(false);
+		}
+		trimLazyCache();
+	}
+
+	/**
+	 * Replaces in place the loading item with the loaded sub items: the loading position is
+	 * changed and the other sub items are inserted with a single range notification.
+	 */
+	private void replaceLoadingSubItem(int position, ILazyExpandable expandable) {
+		List<T> subItems = getExpandableList(expandable);
+		int start = position + 1;
+		boolean loading = start < getItemCount() && mItems.get(start) == expandable.getLoadingSubItem();
+		if (subItems.isEmpty()) {
+			removeLoadingSubItem(expandable);
+			expandable.setExpanded(false);
+			notifyItemChanged(position, Payload.COLLAPSED);
+			return;
+		}
+		int changed = loading ? 1 : 0;
+		if (loading) {
+			mItems.set(start, subItems.get(0));
+			notifyItemChanged(start);
+		}
+		if (subItems.size() > changed) {
+			mItems.addAll(start + changed, subItems.subList(changed, subItems.size()));
+			notifyItemRangeInserted(start + changed, subItems.size() - changed);
+		}
+		// Show also the headers of the subItems
+		if (headersShown) {
+			int count = 0;
+			for (T subItem : subItems) {
+				if (showHeaderOf(position + (++count), subItem, false)) count++;
+			}
+		}
+		// Expandable as a Scrollable Header/Footer
+		if (!expandSHF(mScrollableHeaders, expandable))
+			expandSHF(mScrollableFooters, expandable);
+	}
+
+	private boolean removeLoadingSubItem(ILazyExpandable expandable) {
+		int position = getGlobalPositionOf(expandable.getLoadingSubItem());
+		if (position >= 0) {
+			mItems.remove(position);
+			notifyItemRemoved(position);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Counts the positions of all virtual sub items, without retrieving them: the list of the
+	 * Adapter becomes a {@link VirtualItemList} that provides the sub items by pages.
+	 *
+	 * @return the number of positions added
+	 */
+	private int expandVirtual(int position, IVirtualExpandable expandable) {
+		T placeholder = (T) expandable.getPlaceholderSubItem();
+		int count = expandable.getVirtualSubItemsCount();
+		if (placeholder == null) {
+			Log.w(TAG, "Virtual expandable without placeholder on position " + position);
+			expandable.setExpanded(false);
+			return 0;
+		}
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		if (virtualItems == null) {
+			mItems = virtualItems = new VirtualItemList<>(mItems, mVirtualPageSize, mVirtualMaxPages);
+		}
+		virtualItems.expand(position, expandable, placeholder, count);
+		expandable.setExpanded(true);
+		notifyItemRangeInserted(position + 1, count);
+		if (DEBUG) Log.v(TAG, "Expanded " + count + " virtual subItems on position=" + position);
+		return count;
+	}
+
+	private int collapseVirtual(int position, IVirtualExpandable expandable) {
+		if (getSelectedSubItemsCount(expandable) > 0 && getPendingRemovedItem(getItem(position)) == null) {
+			return 0;
+		}
+		int count = getVirtualItems().collapse(expandable);
+		expandable.setExpanded(false);
+		notifyItemRangeRemoved(position + 1, count);
+		if (DEBUG) Log.v(TAG, "Collapsed " + count + " virtual subItems on position " + position);
+		return count;
+	}
+
+	@Nullable
+	private VirtualItemList<T> getVirtualItems() {
+		return mItems instanceof VirtualItemList ? (VirtualItemList<T>) mItems : null;
+	}
+
+	/**
+	 * @return the number of virtual sub items of the item, -1 if it is not an expanded
+	 * {@link IVirtualExpandable}
+	 */
+	private int getVirtualSubItemsCount(Object item) {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		if (virtualItems == null || !(item instanceof IVirtualExpandable)) return -1;
+		return virtualItems.getVirtualCount((IVirtualExpandable) item);
+	}
+
+	private int getVirtualParentPosition(int position) {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		return virtualItems != null ? virtualItems.getVirtualParentPosition(position) : -1;
+	}
+
+	/**
+	 * @return the main items, without the virtual sub items, to be scanned without retrieving
+	 * the sub items
+	 */
+	private List<T> getMainItems() {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		return virtualItems != null ? virtualItems.getMainItems() : mItems;
+	}
+
+	/**
+	 * @return a new list for a bulk operation, able to hold the virtual sub items
+	 */
+	private List<T> newBulkList(int capacity) {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		return virtualItems != null ? virtualItems.newEmptyList(capacity) : new ArrayList<T>(capacity);
+	}
+
+	/**
+	 * Appends the virtual sub items of the item, just added to the new list of a bulk
+	 * operation, without retrieving them.
+	 *
+	 * @return the number of virtual sub items appended
+	 */
+	private int copyVirtualSubItems(List<T> newItems, T item) {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		if (virtualItems == null || !(item instanceof IVirtualExpandable)) return 0;
+		return virtualItems.copyGroupTo((VirtualItemList<T>) newItems, (IVirtualExpandable) item);
+	}
+
+	/**
+	 * Collapses the virtual expandable items before the list of the Adapter is replaced.
+	 */
+	private void resetVirtualGroups() {
+		VirtualItemList<T> virtualItems = getVirtualItems();
+		if (virtualItems == null) return;
+		for (IVirtualExpandable expandable : virtualItems.getExpandables()) {
+			expandable.setExpanded(false);
+		}
+	}
+
+	/**
+	 * Forgets the lazy items of the previous data set: loaded and still loading.
+	 */
+	private void resetLazyExpandables() {
+		mLazyLoading.clear();
+		mLazyLoaded.clear();
+	}
+
+	/**
+	 * Unloads the least recently expanded lazy items, that are not expanded, exceeding the
+	 * cache size.
+	 */
+	private void trimLazyCache() {
+		Iterator<ILazyExpandable> iterator = mLazyLoaded.keySet().iterator();
+		while (mLazyLoaded.size() > mLazyCacheSize && iterator.hasNext()) {
+			ILazyExpandable expandable = iterator.next();
+			if (!expandable.isExpanded()) {
+				if (DEBUG) Log.v(TAG, "Unloading subItems of " + expandable);
+				expandable.setLoadedSubItems(null);
+				iterator.remove();
+				if (mFilterIndex != null && mFilterIndex.contains((T) expandable)) {
+					mFilterIndex.update((T) expandable);
+				}
 			}
 		}
-		return false;
 	}
 
 	/**
@@ -2584,30 +4022,143 @@ public class FlexibleAdapter<T extends IFlexible>
 
 	/**
 	 * Expands all IExpandable items with at least the specified level.
+	 * <p>The fully expanded list, including the headers of the subItems when headers are shown,
+	 * is computed in one traversal and the changes are dispatched once per expanded group, or
+	 * with a single {@link #notifyDataSetChanged()} if the groups are more than
+	 * {@link #setBulkNotifyLimit(int)}.</p>
 	 *
 	 * @param level the minimum level to expand the sub expandable items
 	 * @return the number of parent successfully expanded
 	 * @see #expandAll()
 	 * @see #setMinCollapsibleLevel(int)
+	 * @see #setBulkNotifyLimit(int)
 	 * @since 5.0.0-b6
+	 * <br/>5.0.0-rc1 Bulk expansion
 	 */
 	public int expandAll(int level) {
-		int expanded = 0;
+		int expanded = 0, itemCount = getItemCount();
 		// More efficient if we expand from First expandable position
 		int startPosition = Math.max(0, mScrollableHeaders.size() - 1);
-		for (int i = startPosition; i < (getItemCount() - mScrollableFooters.size()); i++) {
-			T item = getItem(i);
-			if (isExpandable(item)) {
-				IExpandable expandable = (IExpandable) item;
-				if (expandable.getExpansionLevel() <= level && expand(i, true, false) > 0) {
-					i += expandable.getSubItems().size();
-					expanded++;
+		int endPosition = itemCount - mScrollableFooters.size();
+		List<T> newItems = newBulkList(itemCount);
+		List<int[]> ranges = new ArrayList<>();
+		int[] newPositions = new int[itemCount];
+		for (int i = 0; i < itemCount; i++) {
+			T item = mItems.get(i);
+			newPositions[i] = newItems.size();
+			newItems.add(item);
+			int virtualCount = copyVirtualSubItems(newItems, item);
+			if (virtualCount > 0) {
+				for (int k = 1; k <= virtualCount; k++) newPositions[i + k] = newPositions[i] + k;
+				i += virtualCount;
+				continue;
+			}
+			if (i < startPosition || i >= endPosition || !isExpandable(item)) continue;
+			IExpandable expandable = (IExpandable) item;
+			if (expandable.isExpanded() || !isBulkExpandable(expandable, level)) continue;
+			int rangeStart = newItems.size();
+			expanded += bulkExpand(newItems, expandable, level);
+			ranges.add(new int[]{rangeStart, newItems.size() - rangeStart});
+		}
+		if (expanded > 0) {
+			mItems = newItems;
+			notifyBulkRanges(ranges, true, newPositions);
+			if (DEBUG) Log.v(TAG, "Expanded " + expanded + " parents in " + ranges.size() + " groups");
+		}
+		return expanded;
+	}
+
+	private boolean isBulkExpandable(IExpandable expandable, int level) {
+		return expandable.getExpansionLevel() <= level && hasSubItems(expandable) &&
+				(!isAnyParentSelected() || expandable.getExpansionLevel() <= mSelectedLevel);
+	}
+
+	/**
+	 * Appends the visible subItems (and their hidden headers, if headers are shown) of the
+	 * expandable, recursively expanding the sub expandable items.
+	 *
+	 * @return the number of parents expanded, including the sub expandable items
+	 */
+	private int bulkExpand(List<T> newItems, IExpandable expandable, int level) {
+		int expanded = 1;
+		expandable.setExpanded(true);
+		for (T subItem : getExpandableList(expandable)) {
+			if (headersShown) {
+				IHeader header = getHeaderOf(subItem);
+				if (header != null && header.isHidden() && getPendingRemovedItem(subItem) == null) {
+					header.setHidden(false);
+					newItems.add((T) header);
+				}
+			}
+			newItems.add(subItem);
+			if (isExpandable(subItem)) {
+				IExpandable subExpandable = (IExpandable) subItem;
+				if (hasSubItems(subExpandable) &&
+						(subExpandable.isExpanded() || isBulkExpandable(subExpandable, level))) {
+					expanded += bulkExpand(newItems, subExpandable, level);
 				}
 			}
 		}
+		// Expandable as a Scrollable Header/Footer
+		if (!expandSHF(mScrollableHeaders, expandable))
+			expandSHF(mScrollableFooters, expandable);
 		return expanded;
 	}
 
+	/**
+	 * Notifies the ranges inserted or removed by a bulk operation.
+	 *
+	 * @param ranges       the list of {@code [positionStart, itemCount]} in ascending order: new
+	 *                     positions for insertions, old positions for removals
+	 * @param inserted     true if ranges were inserted, false if removed
+	 * @param newPositions the new position of each old position, used to remap the selection,
+	 *                     -1 for the removed positions, that are deselected
+	 */
+	private void notifyBulkRanges(List<int[]> ranges, boolean inserted, int[] newPositions) {
+		if (ranges.size() > mBulkNotifyLimit) {
+			if (DEBUG) Log.v(TAG, "Bulk limit reached, " + ranges.size() + " ranges: notifyDataSetChanged!");
+			// Selection is not adjusted by the observer when the whole data set changes
+			List<Integer> selectedPositions = getSelectedPositions();
+			for (Integer position : selectedPositions) {
+				removeAdjustedSelection(position);
+			}
+			for (Integer position : selectedPositions) {
+				if (position < newPositions.length && newPositions[position] >= 0)
+					addAdjustedSelection(newPositions[position]);
+			}
+			notifyDataSetChanged();
+		} else {
+			multiRange = true;
+			if (inserted) {
+				for (int[] range : ranges) {
+					notifyItemRangeInserted(range[0], range[1]);
+				}
+			} else {
+				for (int i = ranges.size() - 1; i >= 0; i--) {
+					notifyItemRangeRemoved(ranges.get(i)[0], ranges.get(i)[1]);
+				}
+			}
+			multiRange = false;
+			if (mStickyHeaderHelper != null) mStickyHeaderHelper.updateOrClearHeader(true);
+		}
+	}
+
+	/**
+	 * Tunes the limit after the which the bulk operations {@link #expandAll(int)} and
+	 * {@link #collapseAll(int)} call {@link #notifyDataSetChanged()} instead of notifying
+	 * each expanded or collapsed group.
+	 * <p>Default value is {@value BULK_NOTIFY_LIMIT} groups.</p>
+	 *
+	 * @param limit the number of groups that, when exceeded, will skip range notifications
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setBulkNotifyLimit(@IntRange(from = 0) int limit) {
+		if (DEBUG) Log.i(TAG, "Set bulkNotifyLimit=" + limit);
+		mBulkNotifyLimit = limit;
+		return this;
+	}
+
 	/**
 	 * Collapses an {@code IExpandable} item that is already expanded, if no subItem is selected.
 	 * <p>Multilevel behaviour: all {@code IExpandable} subItem, that are expanded, are recursively
@@ -2623,24 +4174,30 @@ public class FlexibleAdapter<T extends IFlexible>
 		if (!isExpandable(item)) return 0;
 
 		IExpandable expandable = (IExpandable) item;
-		// Take the current subList (will improve the performance when collapseAll)
+		if (mLazyLoading.contains(expandable)) {
+			// Loading continues, loaded sub items will be displayed at the next expansion
+			expandable.setExpanded(false);
+			return removeLoadingSubItem((ILazyExpandable) expandable) ? 1 : 0;
+		}
+		if (getVirtualSubItemsCount(expandable) >= 0) {
+			return collapseVirtual(position, (IVirtualExpandable) expandable);
+		}
+		// Take the current subList
 		List<T> subItems = getExpandableList(expandable);
 		int subItemsCount = subItems.size(), recursiveCount = 0;
 
-		if (DEBUG && mHashItems == null) {
+		if (DEBUG) {
 			Log.v(TAG, "Request to Collapse on position=" + position +
 					" expanded=" + expandable.isExpanded() +
-					" hasSubItemsSelected=" + hasSubItemsSelected(position, subItems));
+					" selectedSubItems=" + getSelectedSubItemsCount(expandable));
 		}
 
 		if (expandable.isExpanded() && subItemsCount > 0 &&
-				(!hasSubItemsSelected(position, subItems) || getPendingRemovedItem(item) != null)) {
+				(getSelectedSubItemsCount(expandable) == 0 || getPendingRemovedItem(item) != null)) {
 
 			// Recursive collapse of all sub expandable
 			recursiveCount = recursiveCollapse(position + 1, subItems, expandable.getExpansionLevel());
-			// Use HashSet (will improve the performance when collapseAll)
-			if (mHashItems != null) mHashItems.removeAll(subItems);
-			else mItems.removeAll(subItems);
+			mItems.removeAll(subItems);
 			subItemsCount = subItems.size();
 			// Save expanded state
 			expandable.setExpanded(false);
@@ -2660,6 +4217,7 @@ public class FlexibleAdapter<T extends IFlexible>
 
 			if (DEBUG)
 				Log.v(TAG, "Collapsed " + subItemsCount + " subItems on position " + position);
+			if (expandable instanceof ILazyExpandable) trimLazyCache();
 		}
 		return subItemsCount + recursiveCount;
 	}
@@ -2698,18 +4256,100 @@ public class FlexibleAdapter<T extends IFlexible>
 
 	/**
 	 * Collapses all expandable items with the level equals-higher than the specified level.
+	 * <p>Expandable items having selected subItems are not collapsed, but their sub expandable
+	 * items still are. The collapsed list is computed in one traversal and the changes are
+	 * dispatched once per collapsed group, or with a single {@link #notifyDataSetChanged()} if
+	 * the groups are more than {@link #setBulkNotifyLimit(int)}.</p>
 	 *
 	 * @param level the level to start collapse sub expandable items
 	 * @return the number of parent successfully collapsed
 	 * @see #collapseAll()
+	 * @see #setBulkNotifyLimit(int)
 	 * @since 5.0.0-b6
+	 * <br/>5.0.0-rc1 Bulk collapse
 	 */
 	public int collapseAll(int level) {
-		// Use hashSet to increase performance while removing subItems
-		mHashItems = new LinkedHashSet<>(mItems);
-		int collapsed = recursiveCollapse(0, mItems, level);
-		mItems = new ArrayList<>(mHashItems);
-		mHashItems = null;
+		int collapsed = 0, itemCount = getItemCount();
+		List<T> newItems = newBulkList(itemCount);
+		List<int[]> ranges = new ArrayList<>();
+		int[] newPositions = new int[itemCount];
+		// Positions of the collapsed subItems stay -1: removed rows
+		Arrays.fill(newPositions, -1);
+		int i = 0;
+		while (i < itemCount) {
+			T item = mItems.get(i);
+			newPositions[i] = newItems.size();
+			newItems.add(item);
+			if (isExpanded(item) && ((IExpandable) item).getExpansionLevel() >= level) {
+				IExpandable expandable = (IExpandable) item;
+				int extent = getSubTreeExtent(i, expandable);
+				if (extent < 0) {
+					if (DEBUG) Log.w(TAG, "SubItems not in sequence, skip collapse on position " + i);
+				} else if (extent > 0 &&
+						(getSelectedSubItemsCount(expandable) == 0 || getPendingRemovedItem(item) != null)) {
+					collapsed += bulkCollapse(i, extent, !isHeader(item));
+					ranges.add(new int[]{i + 1, extent});
+					i += extent + 1;
+					continue;
+				}
+			}
+			int virtualCount = copyVirtualSubItems(newItems, item);
+			for (int k = 1; k <= virtualCount; k++) newPositions[i + k] = newPositions[i] + k;
+			i += virtualCount + 1;
+		}
+		if (collapsed > 0) {
+			mItems = newItems;
+			notifyBulkRanges(ranges, false, newPositions);
+			if (DEBUG) Log.v(TAG, "Collapsed " + collapsed + " parents in " + ranges.size() + " groups");
+		}
+		return collapsed;
+	}
+
+	/**
+	 * @return the number of positions occupied by all visible descendants of the expanded
+	 * item (headers of the subItems included), -1 if they are not laid out in sequence
+	 */
+	private int getSubTreeExtent(int position, IExpandable expandable) {
+		int virtualCount = getVirtualSubItemsCount(expandable);
+		if (virtualCount >= 0) return virtualCount;
+		int next = position + 1;
+		for (T subItem : getExpandableList(expandable)) {
+			if (next < mItems.size() && isHeader(mItems.get(next)) && getHeaderOf(subItem) == mItems.get(next))
+				next++;
+			if (next >= mItems.size() || !mItems.get(next).equals(subItem))
+				return -1;
+			if (isExpanded(subItem)) {
+				int extent = getSubTreeExtent(next, (IExpandable) subItem);
+				if (extent < 0) return -1;
+				next += extent;
+			}
+			next++;
+		}
+		return next - position - 1;
+	}
+
+	/**
+	 * Resets the expanded state of the expandable at the position and of all its descendants.
+	 *
+	 * @return the number of parents collapsed
+	 */
+	private int bulkCollapse(int position, int extent, boolean hideHeaders) {
+		int collapsed = 0;
+		for (int i = position; i <= position + extent; i++) {
+			T item = mItems.get(i);
+			if (isExpanded(item)) {
+				IExpandable expandable = (IExpandable) item;
+				expandable.setExpanded(false);
+				// Expandable as a Scrollable Header/Footer
+				if (!collapseSHF(mScrollableHeaders, expandable))
+					collapseSHF(mScrollableFooters, expandable);
+				collapsed++;
+				// Virtual sub items are not copied in the new list
+				i += Math.max(0, getVirtualSubItemsCount(expandable));
+			} else if (hideHeaders && headersShown && i > position && isHeader(item)) {
+				item.setHidden(true);
+			}
+		}
 		return collapsed;
 	}
 
@@ -2745,12 +4385,18 @@ public class FlexibleAdapter<T extends IFlexible>
 	 */
 	public void updateItem(@IntRange(from = 0) int position, @NonNull T item,
 						   @Nullable Object payload) {
+		checkNotLazyItems("update items");
 		int itemCount = getItemCount();
 		if (position < 0 || position >= itemCount) {
 			Log.e(TAG, "Cannot updateItem on position out of OutOfBounds!");
 			return;
 		}
-		mItems.set(position, item);
+		T oldItem = mItems.set(position, item);
+		invalidateFilterCache();
+		if (mFilterIndex != null) {
+			if (!item.equals(oldItem)) mFilterIndex.remove(oldItem);
+			mFilterIndex.update(item);
+		}
 		if (DEBUG) Log.d(TAG, "updateItem notifyItemChanged on position " + position);
 		notifyItemChanged(position, payload);
 	}
@@ -2849,6 +4495,8 @@ public class FlexibleAdapter<T extends IFlexible>
 		}
 		// Insert the item properly
 		performInsert(position, items, true);
+		addToFilterIndex(items);
+		invalidateFilterCache();
 
 		// Show the headers of these items if all headers are already visible
 		if (headersShown && !recursive) {
@@ -2864,6 +4512,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	}
 
 	private void performInsert(int position, List<T> items, boolean notify) {
+		checkNotLazyItems("add items");
 		int itemCount = getItemCount();
 		if (position < itemCount) {
 			mItems.addAll(position, items);
@@ -3005,6 +4654,10 @@ public class FlexibleAdapter<T extends IFlexible>
 								@NonNull IExpandable parent,
 								@NonNull List<T> items, boolean expandParent, @Nullable Object payload) {
 		boolean added = false;
+		// Index the new sub items with the parent
+		if (mFilterIndex != null && mFilterIndex.contains((T) parent)) {
+			mFilterIndex.update((T) parent);
+		}
 		// Expand parent if requested and not already expanded
 		if (expandParent && !parent.isExpanded()) {
 			expand(parentPosition);
@@ -3408,6 +5061,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	//FIXME: Fix payload message if customized
 	public void removeRange(@IntRange(from = 0) int positionStart,
 							@IntRange(from = 0) int itemCount, @Nullable Object payload) {
+		checkNotLazyItems("remove items");
 		int initialCount = getItemCount();
 		if (DEBUG)
 			Log.d(TAG, "removeRange positionStart=" + positionStart + " itemCount=" + itemCount);
@@ -3456,11 +5110,16 @@ public class FlexibleAdapter<T extends IFlexible>
 			}
 			// Remove item from internal list
 			mItems.remove(positionStart);
-			removeSelection(position);
+			if (removeAdjustedSelection(position)) selectedSubItemsCounted = false;
+			if (permanentDelete && mFilterIndex != null) {
+				mFilterIndex.remove(item);
+				invalidateSourceOrder();
+			}
 		}
 
 		// Notify range removal
 		notifyItemRangeRemoved(positionStart, itemCount);
+		invalidateFilterCache();
 		// Notify the Parent about the change if requested
 		if (parentPosition >= 0 && payload != null) {
 			notifyItemChanged(parentPosition, payload);
@@ -3628,7 +5287,7 @@ public class FlexibleAdapter<T extends IFlexible>
 				// Restore parent or simple item, if not deleted
 				if (DEBUG) Log.d(TAG, "Restore Parent " + restoreInfo);
 				// Skip item addition if filter is active
-				if (hasSearchText() && !filterExpandableObject(restoreInfo.item))
+				if (hasSearchText() && !filterRestoredObject(restoreInfo.item))
 					continue;
 				// Add header if not visible
 				if (hasSearchText() && hasHeader(restoreInfo.item) &&
@@ -3651,16 +5310,12 @@ public class FlexibleAdapter<T extends IFlexible>
 		}
 		// Restore selection if requested, before emptyBin
 		if (restoreSelection && !mRestoreList.isEmpty()) {
-			if (isExpandable(mRestoreList.get(0).item) || getExpandableOf(mRestoreList.get(0).item) == null) {
-				parentSelected = true;
-			} else {
-				childSelected = true;
-			}
 			for (RestoreInfo restoreInfo : mRestoreList) {
 				if (restoreInfo.item.isSelectable()) {
 					addSelection(getGlobalPositionOf(restoreInfo.item));
 				}
 			}
+			selectedSubItemsCounted = false;
 			if (DEBUG) Log.d(TAG, "Selected positions after restore " + getSelectedPositions());
 		}
 
@@ -3839,42 +5494,464 @@ public class FlexibleAdapter<T extends IFlexible>
 	}
 
 	/**
-	 * Sometimes it is necessary, while filtering or after the data set has been updated, to
-	 * rebound the items that remain unfiltered.
-	 * <p>If the items have highlighted text, those items must be refreshed in order to change the
-	 * text back to normal. This happens systematically when searchText is reduced in length by
-	 * the user.</p>
-	 * The notification is triggered in {@link #animateTo(List, Payload)} when new items are not added.
-	 * <p>Default value is {@code false}.</p>
-	 *
-	 * @param notifyChange true to trigger {@link #notifyItemChanged(int)} while filtering,
-	 *                     false otherwise
-	 * @return this Adapter, so the call can be chained
-	 * @since 5.0.0-b1
+	 * @return the current search index, null if not set
+	 * @since 5.0.0-rc1
+	 */
+	public FilterIndex<T> getFilterIndex() {
+		return mFilterIndex;
+	}
+
+	/**
+	 * Sets a search index to pre-select the items that can match the search text, so only
+	 * those items are filtered with {@link #filterObject(IFlexible, String)}.
+	 * <p>The index is filled with the current items and it is updated when items are added,
+	 * updated, removed (after the deletion is confirmed) and when the data set is updated.
+	 * Items must implement {@link eu.davidea.flexibleadapter.items.IIndexable} to be
+	 * indexed, the others are always filtered.</p>
+	 * <b>Note:</b> Set the index when the full data set is displayed, not while filtering.
+	 * <p>Default value is {@code null} (all items are filtered).</p>
+	 *
+	 * @param filterIndex the index, for instance
+	 *                    {@link eu.davidea.flexibleadapter.filter.NGramFilterIndex},
+	 *                    null to disable it
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setFilterIndex(@Nullable FilterIndex<T> filterIndex) {
+		if (DEBUG) Log.i(TAG, "Set filterIndex=" + filterIndex);
+		this.mFilterIndex = filterIndex;
+		if (filterIndex != null) {
+			filterIndex.clear();
+			addToFilterIndex(mItems);
+		}
+		return this;
+	}
+
+	/**
+	 * Indexes the new items, with their headers.
+	 */
+	private void addToFilterIndex(List<T> items) {
+		if (mFilterIndex == null) return;
+		invalidateSourceOrder();
+		for (T item : items) {
+			if (!mFilterIndex.contains(item)) mFilterIndex.add(item);
+			T header = (T) getHeaderOf(item);
+			if (header != null && !mFilterIndex.contains(header)) mFilterIndex.add(header);
+		}
+	}
+
+	private void removeFromFilterIndex(List<T> items) {
+		if (mFilterIndex == null) return;
+		invalidateSourceOrder();
+		for (T item : items) mFilterIndex.remove(item);
+	}
+
+	/**
+	 * @return true if the item could match the search text and must be filtered
+	 */
+	private boolean isFilterCandidate(T item, Set<T> candidates) {
+		return candidates == null || candidates.contains(item) || !mFilterIndex.contains(item);
+	}
+
+	/**
+	 * Sometimes it is necessary, while filtering or after the data set has been updated, to
+	 * rebound the items that remain unfiltered.
+	 * <p>If the items have highlighted text, those items must be refreshed in order to change the
+	 * text back to normal. This happens systematically when searchText is reduced in length by
+	 * the user.</p>
+	 * The notification is triggered in {@link #animateTo(List, Payload)} when new items are not added.
+	 * <p>Default value is {@code false}.</p>
+	 *
+	 * @param notifyChange true to trigger {@link #notifyItemChanged(int)} while filtering,
+	 *                     false otherwise
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-b1
+	 */
+	public final FlexibleAdapter setNotifyChangeOfUnfilteredItems(boolean notifyChange) {
+		if (DEBUG) Log.i(TAG, "Set notifyChangeOfUnfilteredItems=" + notifyChange);
+		this.notifyChangeOfUnfilteredItems = notifyChange;
+		return this;
+	}
+
+	/**
+	 * This method performs a further step to nicely animate the moved items.
+	 * <p>The process is very slow on big list of the order of ~3-5000 items and higher,
+	 * due to the calculation of the correct position for each item to be shifted.
+	 * Use with caution!</p>
+	 * The slowness is higher when the searchText is cleared out.
+	 * <p>Default value is {@code false}.</p>
+	 *
+	 * @param notifyMove true to animate move changes after filtering or update data set,
+	 *                   false otherwise
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-b8
+	 */
+	public final FlexibleAdapter setNotifyMoveOfFilteredItems(boolean notifyMove) {
+		if (DEBUG) Log.i(TAG, "Set notifyMoveOfFilteredItems=" + notifyMove);
+		this.notifyMoveOfFilteredItems = notifyMove;
+		return this;
+	}
+
+	/**
+	 * Enables the refinement of the previous results: when the new search text extends a
+	 * previous one ("ab" &rarr; "abc"), only the items collected by the previous text are
+	 * filtered again. The results of the last {@value FILTER_CACHE_SIZE} search texts are
+	 * cached, so also deleting characters restores the results without scanning all items.
+	 * <p><b>Note:</b> Enable it only if the filter is monotonic: an item that matches a
+	 * search text must also match any prefix of it (for instance, {@code contains()}).</p>
+	 * Cached results are discarded when the Adapter items change or when the list to filter
+	 * has a different size.
+	 * <p>Default value is {@code false}.</p>
+	 *
+	 * @param refinement true to filter only the previous results, false to always filter
+	 *                   the entire list
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setFilterRefinement(boolean refinement) {
+		if (DEBUG) Log.i(TAG, "Set filterRefinement=" + refinement);
+		this.filterRefinement = refinement;
+		if (!refinement) invalidateFilterCache();
+		return this;
+	}
+
+	/**
+	 * Enables the progressive filter: instead of waiting the end of the scan, the first matches
+	 * are displayed as soon as {@code batchSize} items are collected or the frame budget is
+	 * elapsed; further matches are then appended in batches while the scan continues.
+	 * <p>Batches of a filter superseded by a new search text are discarded.
+	 * When results are streamed, changes are not animated.</p>
+	 * <b>Note:</b> The progressive filter is not used when items are filtered in parallel.
+	 * <p>Default value is {@code 0} (disabled).</p>
+	 *
+	 * @param batchSize   the number of the matches to publish at once, 0 to disable
+	 * @param frameBudget the maximum time in milliseconds to wait before publishing the
+	 *                    matches collected so far, ~16ms for a frame
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setProgressiveFilter(@IntRange(from = 0) int batchSize,
+												   @IntRange(from = 0) long frameBudget) {
+		if (DEBUG) Log.i(TAG, "Set progressiveFilter batchSize=" + batchSize + " frameBudget=" + frameBudget);
+		this.mProgressiveBatchSize = Math.max(0, batchSize);
+		this.mProgressiveFrameBudget = Math.max(0, frameBudget);
+		return this;
+	}
+
+	/**
+	 * Enables the ranked filter: the items collected by the filter are sorted by relevance and
+	 * only the best {@code maxResults} are displayed. The best results are kept in a bounded
+	 * heap during the scan, so the cost is {@code O(n log maxResults)} instead of a full sort.
+	 * <p>The relevance is provided by {@link #rankObject(IFlexible, String)}. Expandable items
+	 * are ranked with the best relevance among them and their collected subItems.</p>
+	 * <b>Note:</b> Since the results are not grouped by section, headers are not displayed
+	 * while filtering; the progressive filter is not used; moves are always notified.
+	 * <p>Default value is {@code 0} (disabled, results keep the original order).</p>
+	 *
+	 * @param maxResults the maximum number of the results, 0 to disable
+	 * @return this Adapter, so the call can be chained
+	 * @see IRankable
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setRankedFilter(@IntRange(from = 0) int maxResults) {
+		if (DEBUG) Log.i(TAG, "Set rankedFilter maxResults=" + maxResults);
+		this.mRankedFilterLimit = Math.max(0, maxResults);
+		return this;
+	}
+
+	/**
+	 * Delegates the filter to a data source, for instance a SQL query: the list passed to
+	 * {@link #filterItems(List)} is not scanned while a search text is set, only the first page
+	 * of the matching items is loaded and displayed. When the Endless Scroll is enabled, the
+	 * next pages are loaded from the data source while the user scrolls the results, instead
+	 * of calling the {@link EndlessScrollListener}.
+	 * <p>When the search text is cleared, the list passed to the filter is displayed as usual.</p>
+	 * <b>Note:</b> The page limits of the Endless Scroll don't apply to the filtered pages: the
+	 * results end with the first page smaller than the page size.
+	 * <p>Default value is {@code null} (items are filtered in memory).</p>
+	 *
+	 * @param dataSource the data source to load the matching items, null to disable
+	 * @param pageSize   the number of the items to load for each page
+	 * @return this Adapter, so the call can be chained
+	 * @see #setEndlessProgressItem(IFlexible)
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setFilterDataSource(@Nullable FilterDataSource<T> dataSource,
+												  @IntRange(from = 1) int pageSize) {
+		if (DEBUG) Log.i(TAG, "Set filterDataSource=" + dataSource + " pageSize=" + pageSize);
+		this.mFilterDataSource = dataSource;
+		this.mFilterPageSize = Math.max(1, pageSize);
+		return this;
+	}
+
+	/**
+	 * @return true if the current search text is resolved by the filter data source
+	 */
+	private boolean isFilterPushdown() {
+		return mFilterDataSource != null && hasSearchText();
+	}
+
+	/**
+	 * Loads, in background, a page of the items matching the search text from the data source.
+	 * The pending deleted items are skipped.
+	 *
+	 * @return the items of the page, the count of the loaded items is added to the offset
+	 */
+	private List<T> loadFilterPage(String constraint, int[] offset) {
+		List<T> page = mFilterDataSource.loadFilteredItems(constraint, offset[0], mFilterPageSize);
+		List<T> items = page != null ? new ArrayList<>(page) : new ArrayList<T>();
+		offset[0] += items.size();
+		if (!mRestoreList.isEmpty()) items.removeAll(getDeletedItems());
+		return items;
+	}
+
+	/**
+	 * Appends a page loaded from the filter data source, in the UI Thread.
+	 */
+	private void onFilterPageLoaded(List<T> items, int offset) {
+		filterPageExhausted = offset - mFilterPageOffset < mFilterPageSize;
+		mFilterPageOffset = offset;
+		if (DEBUG) Log.v(TAG, "onLoadMore     filtered page of " + items.size() + " items, exhausted=" + filterPageExhausted);
+		if (!items.isEmpty()) addItems(getGlobalPositionOf(mProgressItem), items);
+		completeEndlessRequest(items.size());
+		hideProgressItem();
+	}
+
+	/**
+	 * Appends, in the UI Thread, the matches published by the progressive filter, between the
+	 * Scrollable Headers and Footers.
+	 */
+	private void onFilterBatch(FilterBatch batch) {
+		batch.mask.apply();
+		if (batch.first) {
+			if (DEBUG) Log.d(TAG, "Filter first batch of " + batch.items.size() + " items");
+			// The selected items that are still displayed keep the selection
+			Set<T> selectedItems = new HashSet<>();
+			for (Integer position : getSelectedPositions()) {
+				selectedItems.add(getItem(position));
+				removeAdjustedSelection(position);
+			}
+			List<T> newItems = new ArrayList<>(mScrollableHeaders);
+			newItems.addAll(batch.items);
+			newItems.addAll(mScrollableFooters);
+			resetVirtualGroups();
+			mItems = newItems;
+			if (!selectedItems.isEmpty()) {
+				for (int position = 0; position < newItems.size(); position++) {
+					if (selectedItems.contains(newItems.get(position))) addAdjustedSelection(position);
+				}
+				selectedSubItemsCounted = false;
+			}
+			notifyDataSetChanged();
+		} else {
+			if (DEBUG) Log.v(TAG, "Filter appending batch of " + batch.items.size() + " items");
+			int positionStart = getItemCount() - mScrollableFooters.size();
+			mItems.addAll(positionStart, batch.items);
+			notifyItemRangeInserted(positionStart, batch.items.size());
+		}
+	}
+
+	/**
+	 * Sets the executor to filter big lists in parallel: the list is split in chunks
+	 * evaluated concurrently by the executor, then the results are collected in the original
+	 * order, headers included.
+	 * <p>A fixed thread pool with a thread for each core is a good choice, for instance
+	 * {@code Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())}.
+	 * Don't use a serial executor.</p>
+	 * <b>Note:</b> Items are filtered in parallel only when more than
+	 * {@value PARALLEL_FILTER_THRESHOLD}: your implementation of
+	 * {@link IFilterable#filter(String)} and {@link #filterObject(IFlexible, String)} must be
+	 * thread safe and should not modify shared state.
+	 * <p>Default value is {@code null} (items are filtered sequentially).</p>
+	 *
+	 * @param executor the executor to run the chunks, null to filter sequentially
+	 * @return this Adapter, so the call can be chained
+	 * @since 5.0.0-rc1
+	 */
+	public FlexibleAdapter<T> setFilterExecutor(@Nullable Executor executor) {
+		if (DEBUG) Log.i(TAG, "Set filterExecutor=" + executor);
+		this.mFilterExecutor = executor;
+		return this;
+	}
+
+	private boolean isFilterCancelled(FilterAsyncTask task) {
+		return task != null && task.isCancelled();
+	}
+
+	/**
+	 * Evaluates the filter of the items, and of their headers, in chunks on the filter executor.
+	 *
+	 * @return false if the filter has been cancelled in the meantime
+	 */
+	private boolean filterItemsInParallel(final List<T> items, final Set<T> candidates, FilterMask mask,
+										  final boolean[] matches, final boolean[] headerMatches) {
+		final FilterAsyncTask task = mFilterAsyncTask;
+		final String constraint = mSearchText;
+		int maxChunks = Runtime.getRuntime().availableProcessors() * 4;
+		final int chunkSize = Math.max(MIN_FILTER_CHUNK_SIZE, (items.size() + maxChunks - 1) / maxChunks);
+		int chunks = (items.size() + chunkSize - 1) / chunkSize;
+		final CountDownLatch latch = new CountDownLatch(chunks);
+		final Throwable[] error = new Throwable[1];
+		// Each chunk has its own mask, merged in order at the end
+		List<FilterMask> masks = new ArrayList<>(chunks);
+		if (DEBUG) Log.d(TAG, "Filtering " + items.size() + " items in " + chunks + " chunks");
+
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			final int start = chunk * chunkSize;
+			final int end = Math.min(items.size(), start + chunkSize);
+			final FilterMask chunkMask = new FilterMask();
+			masks.add(chunkMask);
+			mFilterExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = start; i < end && !isFilterCancelled(task); i++) {
+							T item = items.get(i);
+							if (headersShown)
+								headerMatches[i] = filterHeaderObject((T) getHeaderOf(item), constraint, candidates);
+							matches[i] = filterExpandableObject(item, constraint, candidates, chunkMask);
+						}
+					} catch (Throwable t) {
+						synchronized (error) {
+							if (error[0] == null) error[0] = t;
+						}
+					} finally {
+						latch.countDown();
+					}
+				}
+			});
+		}
+		// Chunks must complete even if cancelled: the executor could be shared
+		boolean interrupted = false;
+		while (true) {
+			try {
+				latch.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+		if (error[0] != null) throw new RuntimeException("Parallel filter failed", error[0]);
+		for (FilterMask chunkMask : masks) mask.merge(chunkMask);
+		return !isFilterCancelled(task);
+	}
+
+	private void invalidateFilterCache() {
+		synchronized (mFilterCache) {
+			mFilterCache.clear();
+			mFilterSourceList = null;
+			mFilterSourceSize = -1;
+			mSourceOrder = null;
+		}
+	}
+
+	private void invalidateSourceOrder() {
+		synchronized (mFilterCache) {
+			mSourceOrder = null;
+		}
+	}
+
+	/**
+	 * Provides the items of the source that must be filtered when the search index resolves
+	 * the search text: the candidates, the items whose header is a candidate and the items not
+	 * indexed, in the order of the source. The positions of the source are computed once and
+	 * reused until the source or the index change.
+	 *
+	 * @return the items to filter, the source itself if the index cannot reduce it
+	 */
+	private List<T> getFilterCandidates(List<T> sourceItems, Set<T> candidates) {
+		if (candidates == null || candidates.size() >= sourceItems.size()) return sourceItems;
+		SourceOrder order;
+		synchronized (mFilterCache) {
+			order = mSourceOrder;
+		}
+		if (order == null || order.source != sourceItems || order.size != sourceItems.size()) {
+			order = new SourceOrder(sourceItems);
+			synchronized (mFilterCache) {
+				mSourceOrder = order;
+			}
+		}
+		List<Integer> positions = new ArrayList<>(order.unindexed);
+		for (T candidate : candidates) {
+			Integer position = order.positions.get(candidate);
+			if (position != null) positions.add(position);
+			List<Integer> section = headersShown ? order.sections.get(candidate) : null;
+			if (section != null) positions.addAll(section);
+		}
+		Collections.sort(positions);
+		List<T> items = new ArrayList<>(positions.size());
+		int lastPosition = -1;
+		for (int position : positions) {
+			if (position != lastPosition) items.add(sourceItems.get(position));
+			lastPosition = position;
+		}
+		if (DEBUG) Log.v(TAG, "Filtering " + items.size() + " candidates of " + sourceItems.size() + " items");
+		return items;
+	}
+
+	/**
+	 * Drops the cached results when the list to filter is another list or its size changed.
+	 */
+	private void checkFilterSource(List<T> unfilteredItems) {
+		if (!filterRefinement) return;
+		synchronized (mFilterCache) {
+			if (unfilteredItems != mFilterSourceList || unfilteredItems.size() != mFilterSourceSize) {
+				mFilterCache.clear();
+				mFilterSourceList = unfilteredItems;
+				mFilterSourceSize = unfilteredItems.size();
+			}
+		}
+	}
+
+	/**
+	 * Provides the items to filter: the cached results of the longest prefix of the search
+	 * text, if refinement is enabled, or all the items.
 	 */
-	public final FlexibleAdapter setNotifyChangeOfUnfilteredItems(boolean notifyChange) {
-		if (DEBUG) Log.i(TAG, "Set notifyChangeOfUnfilteredItems=" + notifyChange);
-		this.notifyChangeOfUnfilteredItems = notifyChange;
-		return this;
+	private List<T> getFilterSource(List<T> unfilteredItems) {
+		if (!filterRefinement) return unfilteredItems;
+		synchronized (mFilterCache) {
+			for (int length = mSearchText.length(); length > 0; length--) {
+				List<T> results = mFilterCache.get(mSearchText.substring(0, length));
+				if (results != null) {
+					if (DEBUG) Log.v(TAG, "Refining " + results.size() + " results of \""
+							+ mSearchText.substring(0, length) + "\"");
+					return results;
+				}
+			}
+		}
+		return unfilteredItems;
 	}
 
 	/**
-	 * This method performs a further step to nicely animate the moved items.
-	 * <p>The process is very slow on big list of the order of ~3-5000 items and higher,
-	 * due to the calculation of the correct position for each item to be shifted.
-	 * Use with caution!</p>
-	 * The slowness is higher when the searchText is cleared out.
-	 * <p>Default value is {@code false}.</p>
-	 *
-	 * @param notifyMove true to animate move changes after filtering or update data set,
-	 *                   false otherwise
-	 * @return this Adapter, so the call can be chained
-	 * @since 5.0.0-b8
+	 * Extends the cached results of the search text with the matches of a new endless page.
+	 * The results of the other texts are incomplete and they are dropped.
 	 */
-	public final FlexibleAdapter setNotifyMoveOfFilteredItems(boolean notifyMove) {
-		if (DEBUG) Log.i(TAG, "Set notifyMoveOfFilteredItems=" + notifyMove);
-		this.notifyMoveOfFilteredItems = notifyMove;
-		return this;
+	private void appendFilterResults(String searchText, List<T> matches, int newItemsSize) {
+		if (!filterRefinement) return;
+		synchronized (mFilterCache) {
+			List<T> results = mFilterCache.get(searchText);
+			mFilterCache.clear();
+			if (results != null && mFilterSourceSize >= 0) {
+				// The cached list could be the source of a running filter
+				List<T> merged = new ArrayList<>(results);
+				merged.addAll(matches);
+				mFilterCache.put(searchText, merged);
+				mFilterSourceSize += newItemsSize;
+			}
+		}
+	}
+
+	private void cacheFilterResults(String searchText, List<T> results) {
+		if (!filterRefinement) return;
+		synchronized (mFilterCache) {
+			mFilterCache.put(searchText, results);
+			Iterator<String> iterator = mFilterCache.keySet().iterator();
+			while (mFilterCache.size() > FILTER_CACHE_SIZE && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
 	}
 
 	/**
@@ -3906,7 +5983,8 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * <ol>
 	 * <li>The Filter is <u>always</u> executed in background, asynchronously.
 	 * The method {@link #onPostFilter()} is called after the filter task is completed.</li>
-	 * <li>This method calls {@link #filterObject(IFlexible, String)}.</li>
+	 * <li>This method calls {@link #filterObject(IFlexible, String)}, unless a
+	 * {@link #setFilterDataSource(FilterDataSource, int) data source} resolves the search text.</li>
 	 * <li>If searchText is empty or {@code null}, the provided list is the new list plus any
 	 * Scrollable Headers and Footers if existent.</li>
 	 * <li>Any pending deleted items are always filtered out, but if restored, they will be
@@ -3933,44 +6011,117 @@ public class FlexibleAdapter<T extends IFlexible>
 		mHandler.sendMessage(Message.obtain(mHandler, FILTER, unfilteredItems));
 	}
 
-	private synchronized void filterItemsAsync(@NonNull List<T> unfilteredItems) {
+	/**
+	 * @return the flags to apply in the UI Thread with the results, null if the filter has
+	 * been cancelled or the search text is unchanged
+	 */
+	private synchronized FilterMask filterItemsAsync(@NonNull List<T> unfilteredItems) {
 		// Note: In case user has deleted some items and he changes or applies a filter while
 		// deletion is pending (Undo started), in order to be consistent, we need to recalculate
 		// the new position in the new list and finally skip those items to avoid they are shown!
 
 		if (DEBUG) Log.i(TAG, "filterItems with searchText=\"" + mSearchText + "\"");
+		checkFilterSource(unfilteredItems);
+		// Lazy sections loaded while filtered are restored with their items
+		unfilteredItems = addLazySectionItems(unfilteredItems, false);
 		List<T> filteredItems = new ArrayList<>();
+		FilterMask mask = new FilterMask();
+		final FilterAsyncTask task = mFilterAsyncTask;
+		int published = 0;
 		filtering = true; //Enable flag: skip adjustPositions!
 
-		if (hasSearchText() && hasNewSearchText(mSearchText)) { //skip when text is unchanged
+		if (isFilterPushdown() && hasNewSearchText(mSearchText)) {
+			// The data source resolves the search text: load only the first page
+			int[] offset = new int[]{0};
+			List<T> page = loadFilterPage(mSearchText, offset);
+			if (isFilterCancelled(task)) return null;
+			Set<T> addedHeaders = new HashSet<>();
+			for (T item : page) {
+				T header = (T) getHeaderOf(item);
+				if (headersShown && header != null && addedHeaders.add(header)) {
+					filteredItems.add(header);
+				}
+				filteredItems.add(item);
+			}
+			mFilterPageOffset = offset[0];
+			filterPageExhausted = offset[0] < mFilterPageSize;
+		} else if (hasSearchText() && hasNewSearchText(mSearchText)) { //skip when text is unchanged
 			int newOriginalPosition = -1;
-			for (T item : unfilteredItems) {
-				if (mFilterAsyncTask != null && mFilterAsyncTask.isCancelled()) return;
+			// Items not resolved by the index don't need to be filtered
+			Set<T> candidates = mFilterIndex != null ? mFilterIndex.getCandidates(mSearchText) : null;
+			List<T> results = new ArrayList<>();
+			Set<T> addedHeaders = new HashSet<>();
+			// Placeholders of the pending sections are never displayed while filtering
+			List<T> sourceItems = removeSectionPlaceholders(
+					getFilterCandidates(getFilterSource(unfilteredItems), candidates));
+			// Evaluate the filter in parallel, if requested, then collect in order
+			boolean[] matches = null, headerMatches = null;
+			if (mFilterExecutor != null && sourceItems.size() > PARALLEL_FILTER_THRESHOLD) {
+				matches = new boolean[sourceItems.size()];
+				headerMatches = new boolean[sourceItems.size()];
+				if (!filterItemsInParallel(sourceItems, candidates, mask, matches, headerMatches)) return null;
+			}
+			RankedItems rankedItems = mRankedFilterLimit > 0 ? new RankedItems(mRankedFilterLimit) : null;
+			boolean progressive = mProgressiveBatchSize > 0 && matches == null && task != null
+					&& rankedItems == null;
+			long publishTime = System.currentTimeMillis();
+			for (int i = 0; i < sourceItems.size(); i++) {
+				T item = sourceItems.get(i);
+				if (isFilterCancelled(task) || (task != null && task.generation != mFilterGeneration)) return null;
+				// Publish the matches collected so far, if enough or if the frame budget is over
+				if (progressive && filteredItems.size() > published &&
+						(filteredItems.size() - published >= mProgressiveBatchSize ||
+								System.currentTimeMillis() - publishTime >= mProgressiveFrameBudget)) {
+					task.publishBatch(new FilterBatch(
+							new ArrayList<>(filteredItems.subList(published, filteredItems.size())),
+							mask, published == 0));
+					published = filteredItems.size();
+					publishTime = System.currentTimeMillis();
+					mask = new FilterMask();
+				}
 				// Filter header first
 				T header = (T) getHeaderOf(item);
-				if (headersShown) {
-					if (header != null && filterObject(header, getSearchText())
-							&& !filteredItems.contains(header)) {
-						filteredItems.add(header);
+				if (headersShown && rankedItems == null) {
+					if (matches != null ? headerMatches[i] : filterHeaderObject(header, mSearchText, candidates)) {
+						results.add(item);
+						if (addedHeaders.add(header)) filteredItems.add(header);
 					}
 				}
-				if (filterExpandableObject(item)) {
+				if (matches != null ? matches[i] : filterExpandableObject(item, mSearchText, candidates, mask)) {
+					if (results.isEmpty() || results.get(results.size() - 1) != item) results.add(item);
 					RestoreInfo restoreInfo = getPendingRemovedItem(item);
 					if (restoreInfo != null) {
 						// If found, point to the new reference while filtering
 						restoreInfo.filterRefItem = ++newOriginalPosition < filteredItems.size() ?
 								filteredItems.get(newOriginalPosition) : null;
+					} else if (rankedItems != null) {
+						// Keep only the best results, they are collected at the end
+						rankedItems.offer(item, rankFilteredObject(item, mask));
 					} else {
-						if (headersShown && hasHeader(item) && !filteredItems.contains(header)) {
+						if (headersShown && hasHeader(item) && addedHeaders.add(header)) {
 							filteredItems.add(header);
 						}
 						filteredItems.add(item);
-						newOriginalPosition += 1 + addFilteredSubItems(filteredItems, item);
+						newOriginalPosition += 1 + addFilteredSubItems(filteredItems, item, mask);
 					}
 				} else {
-					item.setHidden(true);
+					mask.setHidden(item, true);
+				}
+			}
+			cacheFilterResults(mSearchText, results);
+			if (rankedItems != null) {
+				for (T item : rankedItems.getSortedItems()) {
+					filteredItems.add(item);
+					addFilteredSubItems(filteredItems, item, mask);
 				}
 			}
+			// Publish the last matches, if results are streamed
+			if (published > 0 && filteredItems.size() > published) {
+				task.publishBatch(new FilterBatch(
+						new ArrayList<>(filteredItems.subList(published, filteredItems.size())),
+						mask, false));
+				mask = new FilterMask();
+			}
 		} else if (hasNewSearchText(mSearchText)) { //this is better than checking emptiness
 			filteredItems = unfilteredItems; //with no filter
 			if (!mRestoreList.isEmpty()) {
@@ -3984,7 +6135,7 @@ public class FlexibleAdapter<T extends IFlexible>
 				// Deleted items not yet committed should not appear
 				filteredItems.removeAll(getDeletedItems());
 			}
-			resetFilterFlags(filteredItems);
+			filteredItems = resetFilterFlags(filteredItems, mask);
 			restoreScrollableHeadersAndFooters(filteredItems);
 		}
 
@@ -3994,47 +6145,113 @@ public class FlexibleAdapter<T extends IFlexible>
 		// Animate search results only in case of new SearchText
 		if (hasNewSearchText(mSearchText)) {
 			mOldSearchText = mSearchText;
-			animateDiff(filteredItems, Payload.FILTER);
-			//animateTo(filteredItems, Payload.FILTER);
+			if (published > 0) {
+				// Results are already displayed, no further notifications
+				diffResult = null;
+				mNotifications = new ArrayList<>();
+				mTempItems = new ArrayList<>(mScrollableHeaders);
+				mTempItems.addAll(filteredItems);
+				mTempItems.addAll(mScrollableFooters);
+			} else {
+				animateDiff(filteredItems, Payload.FILTER);
+				//animateTo(filteredItems, Payload.FILTER);
+			}
+			return mask;
 		}
+		return null;
 	}
 
 	/**
 	 * This method is a wrapper filter for expandable items.<br/>
-	 * It performs filtering on the subItems returning true, if the any child should be in the
-	 * filtered collection.
+	 * It performs filtering on the subItems, at all levels, returning true if any descendant
+	 * should be in the filtered collection. Only the ancestors of the collected sub items are
+	 * expanded.
 	 * <p>If the provided item is not an expandable it will be filtered as usual by
 	 * {@link #filterObject(T, String)}.</p>
+	 * Items are not modified: hidden and expanded flags are collected in the mask.
 	 *
-	 * @param item the object with subItems to be inspected
+	 * @param item       the object with subItems to be inspected
+	 * @param constraint the search text
+	 * @param candidates the items pre-selected by the search index, null to filter all items
+	 * @param mask       the mask that collects the new flags
 	 * @return true, if the object should be in the filteredResult, false otherwise
 	 * @since 5.0.0-b1
+	 * <br/>5.0.0-rc1 Multi-level filtering
 	 */
-	private boolean filterExpandableObject(T item) {
-		// Reset expansion flag
-		boolean filtered = false;
+	private boolean filterExpandableObject(T item, String constraint, Set<T> candidates, FilterMask mask) {
 		if (isExpandable(item)) {
 			IExpandable expandable = (IExpandable) item;
 			// Save which expandable was originally expanded before filtering it out
 			if (expandable.isExpanded()) {
-				if (mExpandedFilterFlags == null)
-					mExpandedFilterFlags = new HashSet<>();
-				mExpandedFilterFlags.add(expandable);
-			}
-			expandable.setExpanded(false);
-			// Children scan filter
-			for (T subItem : getCurrentChildren(expandable)) {
-				// Reuse normal filter for Children
-				subItem.setHidden(!filterObject(subItem, getSearchText()));
-				if (!filtered && !subItem.isHidden()) {
-					filtered = true;
-				}
+				mask.expandedBeforeFilter.add(expandable);
 			}
+			mask.setExpanded(expandable, false);
+			// The search index excludes the entire subtree
+			if (!isFilterCandidate(item, candidates)) return false;
 			// Expand if filter found text in subItems
-			expandable.setExpanded(filtered);
+			if (filterSubItems(expandable, constraint, candidates, mask)) {
+				mask.setExpanded(expandable, true);
+				return true;
+			}
 		}
 		// if not filtered already, fallback to Normal filter
-		return filtered || filterObject(item, getSearchText());
+		return isFilterCandidate(item, candidates) && matchFilter(item, constraint, candidates);
+	}
+
+	/**
+	 * Filters the subItems of the expandable, walking the subtree once.
+	 *
+	 * @return true if at least one subItem, at any level, is collected by the filter
+	 */
+	private boolean filterSubItems(IExpandable expandable, String constraint, Set<T> candidates, FilterMask mask) {
+		boolean filtered = false;
+		for (T subItem : getCurrentChildren(expandable)) {
+			boolean subtreeFiltered = false;
+			if (isExpandable(subItem)) {
+				IExpandable subExpandable = (IExpandable) subItem;
+				if (subExpandable.isExpanded()) {
+					mask.expandedBeforeFilter.add(subExpandable);
+				}
+				// Subtrees without subItems are pruned
+				subtreeFiltered = hasSubItems(subExpandable) && filterSubItems(subExpandable, constraint, candidates, mask);
+				mask.setExpanded(subExpandable, subtreeFiltered);
+			}
+			// Reuse normal filter for Children
+			boolean hidden = !subtreeFiltered && !matchFilter(subItem, constraint, candidates);
+			mask.setHidden(subItem, hidden);
+			if (!hidden) filtered = true;
+		}
+		return filtered;
+	}
+
+	/**
+	 * Filters the restored item in the UI Thread, applying immediately the new flags.
+	 */
+	private boolean filterRestoredObject(T item) {
+		FilterMask mask = new FilterMask();
+		boolean filtered = filterExpandableObject(item, getSearchText(), null, mask);
+		mask.apply();
+		return filtered;
+	}
+
+	/**
+	 * @return true if the header exists and it is collected by the current filter
+	 */
+	private boolean filterHeaderObject(T header, String constraint, Set<T> candidates) {
+		return header != null && isFilterCandidate(header, candidates)
+				&& matchFilter(header, constraint, candidates);
+	}
+
+	/**
+	 * Uses the result of the search index, if it resolves exactly the search text, otherwise
+	 * calls {@link #filterObject(IFlexible, String)}.
+	 */
+	private boolean matchFilter(T item, String constraint, Set<T> candidates) {
+		if (candidates != null && mFilterIndex.isExact() && item instanceof IIndexable
+				&& mFilterIndex.contains(item)) {
+			return candidates.contains(item);
+		}
+		return filterObject(item, constraint);
 	}
 
 	/**
@@ -4060,54 +6277,113 @@ public class FlexibleAdapter<T extends IFlexible>
 	}
 
 	/**
-	 * Adds to the final list also the filtered subItems.
+	 * This method checks if the provided object is a type of {@link IRankable} interface,
+	 * if yes, returns the relevance of the implemented method {@link IRankable#getRelevance(String)}.
+	 * <p>Called only for items collected by the filter, when the ranked filter is enabled.
+	 * If you don't want to implement the {@code IRankable} interface on the items, then you
+	 * can override this method to have another relevance logic!</p>
+	 *
+	 * @param item       the object to be ranked
+	 * @param constraint constraint, that the object has fulfilled
+	 * @return the relevance of the item, higher is better
+	 * @see #setRankedFilter(int)
+	 * @since 5.0.0-rc1
+	 */
+	protected float rankObject(T item, String constraint) {
+		return item instanceof IRankable ? ((IRankable) item).getRelevance(constraint) : 0f;
+	}
+
+	/**
+	 * @return the best relevance among the item and its collected subItems, at all levels
+	 */
+	private float rankFilteredObject(T item, FilterMask mask) {
+		float relevance = rankObject(item, getSearchText());
+		if (isExpandable(item) && mask.isExpanded((IExpandable) item)) {
+			for (T subItem : getCurrentChildren((IExpandable) item)) {
+				if (!mask.isHidden(subItem))
+					relevance = Math.max(relevance, rankFilteredObject(subItem, mask));
+			}
+		}
+		return relevance;
+	}
+
+	/**
+	 * Adds to the final list also the filtered subItems, at all levels.
 	 */
-	private int addFilteredSubItems(List<T> values, T item) {
+	private int addFilteredSubItems(List<T> values, T item, FilterMask mask) {
+		int count = 0;
 		if (isExpandable(item)) {
 			IExpandable expandable = (IExpandable) item;
 			if (hasSubItems(expandable)) {
 				// Add subItems if not hidden by filterObject()
-				List<T> filteredSubItems = new ArrayList<>();
 				List<T> subItems = expandable.getSubItems();
 				for (T subItem : subItems) {
-					if (!subItem.isHidden()) filteredSubItems.add(subItem);
+					if (mask.isHidden(subItem)) continue;
+					values.add(subItem);
+					count++;
+					// Add the subItems of the expanded ancestors
+					if (isExpandable(subItem) && mask.isExpanded((IExpandable) subItem)) {
+						count += addFilteredSubItems(values, subItem, mask);
+					}
 				}
-				values.addAll(filteredSubItems);
-				return filteredSubItems.size();
 			}
 		}
-		return 0;
+		return count;
 	}
 
 	/**
 	 * Clears flags after searchText is cleared out for Expandable items and sub items.
+	 *
+	 * @return a new list with the items and the subItems of the expanded items
+	 */
+	private List<T> resetFilterFlags(List<T> items, FilterMask mask) {
+		List<T> values = new ArrayList<>(items.size());
+		resetFilterFlags(items, values, mask);
+		mask.resetExpandedFlags = true;
+		return values;
+	}
+
+	/**
+	 * Builds the unfiltered list in one pass, appending the subItems of the expanded items.
 	 */
-	private void resetFilterFlags(List<T> items) {
+	private void resetFilterFlags(List<T> items, List<T> values, FilterMask mask) {
 		// Reset flags for all items!
-		for (int i = 0; i < items.size(); i++) {
-			T item = items.get(i);
-			item.setHidden(false);
+		for (T item : items) {
+			mask.setHidden(item, false);
+			values.add(item);
 			if (isExpandable(item)) {
 				IExpandable expandable = (IExpandable) item;
 				// Reset expanded flag
 				if (mExpandedFilterFlags != null)
-					expandable.setExpanded(mExpandedFilterFlags.contains(expandable));
+					mask.setExpanded(expandable, mExpandedFilterFlags.contains(expandable));
 				if (hasSubItems(expandable)) {
 					List<T> subItems = expandable.getSubItems();
-					for (T subItem : subItems) {
-						// Reset subItem hidden flag
-						subItem.setHidden(false);
+					if (mask.isExpanded(expandable)) {
 						// Show subItems for expanded items
-						if (expandable.isExpanded()) {
-							i++;
-							if (i < items.size()) items.add(i, subItem);
-							else items.add(subItem);
-						}
+						resetFilterFlags(subItems, values, mask);
+					} else {
+						resetSubItemsFilterFlags(subItems, mask);
 					}
 				}
 			}
 		}
-		mExpandedFilterFlags = null;
+	}
+
+	/**
+	 * Clears flags of the subItems, at all levels, that are not displayed.
+	 */
+	private void resetSubItemsFilterFlags(List<T> subItems, FilterMask mask) {
+		for (T subItem : subItems) {
+			// Reset subItem hidden flag
+			mask.setHidden(subItem, false);
+			if (isExpandable(subItem)) {
+				IExpandable expandable = (IExpandable) subItem;
+				if (mExpandedFilterFlags != null)
+					mask.setExpanded(expandable, mExpandedFilterFlags.contains(expandable));
+				if (hasSubItems(expandable))
+					resetSubItemsFilterFlags(expandable.getSubItems(), mask);
+			}
+		}
 	}
 
 	/**
@@ -4185,12 +6461,19 @@ public class FlexibleAdapter<T extends IFlexible>
 				diffUtilCallback = new DiffUtilCallback();
 			}
 			diffUtilCallback.setItems(mItems, newItems);
-			diffResult = DiffUtil.calculateDiff(diffUtilCallback, notifyMoveOfFilteredItems);
+			diffResult = DiffUtil.calculateDiff(diffUtilCallback, isNotifyMove(payloadChange));
 		} else {
 			animateTo(newItems, payloadChange);
 		}
 	}
 
+	/**
+	 * @return true if moves must be notified: ranked results always change the order
+	 */
+	private boolean isNotifyMove(Payload payloadChange) {
+		return notifyMoveOfFilteredItems || (payloadChange == Payload.FILTER && mRankedFilterLimit > 0);
+	}
+
 	/**
 	 * Animate the synchronization between the old list and the new list.
 	 * <p>Used by filter and updateDataSet.</p>
@@ -4214,7 +6497,7 @@ public class FlexibleAdapter<T extends IFlexible>
 			mTempItems = new ArrayList<>(mItems);
 			applyAndAnimateRemovals(mTempItems, newItems);
 			applyAndAnimateAdditions(mTempItems, newItems);
-			if (notifyMoveOfFilteredItems)
+			if (isNotifyMove(payloadChange))
 				applyAndAnimateMovedItems(mTempItems, newItems);
 		} else {
 			if (DEBUG)
@@ -4327,12 +6610,16 @@ public class FlexibleAdapter<T extends IFlexible>
 	private synchronized void executeNotifications(Payload payloadChange) {
 		if (diffResult != null) {
 			if (DEBUG) Log.i(TAG, "Dispatching notifications");
+			resetVirtualGroups();
 			mItems = diffUtilCallback.getNewItems(); //Update mItems in the UI Thread
+			selectedSubItemsCounted = false;
 			diffResult.dispatchUpdatesTo(this);
 			diffResult = null;
 		} else {
 			if (DEBUG) Log.i(TAG, "Performing " + mNotifications.size() + " notifications");
+			resetVirtualGroups();
 			mItems = mTempItems; //Update mItems in the UI Thread
+			selectedSubItemsCounted = false;
 			setScrollAnimate(false); //Disable scroll animation
 			for (Notification notification : mNotifications) {
 				switch (notification.operation) {
@@ -4547,12 +6834,14 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b7
 	 */
 	public void moveItem(int fromPosition, int toPosition, @Nullable Object payload) {
+		checkNotLazyItems("move items");
 		if (DEBUG)
 			Log.v(TAG, "moveItem fromPosition=" + fromPosition + " toPosition=" + toPosition);
 		// Preserve selection
 		if ((isSelected(fromPosition))) {
-			removeSelection(fromPosition);
-			addSelection(toPosition);
+			removeAdjustedSelection(fromPosition);
+			addAdjustedSelection(toPosition);
+			selectedSubItemsCounted = false;
 		}
 		T item = mItems.get(fromPosition);
 		// Preserve expanded status and Collapse expandable
@@ -4580,6 +6869,7 @@ public class FlexibleAdapter<T extends IFlexible>
 	 * @since 5.0.0-b7
 	 */
 	public void swapItems(List<T> list, int fromPosition, int toPosition) {
+		checkNotLazyItems("swap items");
 		if (fromPosition < 0 || fromPosition >= getItemCount() ||
 				toPosition < 0 || toPosition >= getItemCount()) {
 			return;
@@ -4596,6 +6886,7 @@ public class FlexibleAdapter<T extends IFlexible>
 		}
 
 		// Perform item swap (for all LayoutManagers)
+		if (getSelectedItemCount() > 0) selectedSubItemsCounted = false;
 		if (fromPosition < toPosition) {
 			for (int i = fromPosition; i < toPosition; i++) {
 				if (DEBUG) Log.v(TAG, "swapItems from=" + i + " to=" + (i + 1));
@@ -4741,6 +7032,7 @@ public class FlexibleAdapter<T extends IFlexible>
 			mTypeInstances.put(item.getLayoutRes(), item);
 			if (DEBUG)
 				Log.i(TAG, "Mapped viewType " + item.getLayoutRes() + " from " + getClassName(item));
+			schedulePreInflation(item.getLayoutRes());
 		}
 	}
 
@@ -4826,23 +7118,6 @@ public class FlexibleAdapter<T extends IFlexible>
 		return subItems;
 	}
 
-	/**
-	 * Allows or disallows the request to collapse the Expandable item.
-	 *
-	 * @param startPosition helps to improve performance, so we can avoid a new search for position
-	 * @param subItems      the list of sub items to check
-	 * @return true if at least 1 subItem is currently selected, false if no subItems are selected
-	 * @since 5.0.0-b1
-	 */
-	private boolean hasSubItemsSelected(int startPosition, List<T> subItems) {
-		for (T subItem : subItems) {
-			if (isSelected(++startPosition) ||
-					(isExpanded(subItem) && hasSubItemsSelected(startPosition, getExpandableList((IExpandable) subItem))))
-				return true;
-		}
-		return false;
-	}
-
 	private void performScroll(final int position) {
 		if (mRecyclerView != null) {
 			mRecyclerView.smoothScrollToPosition(Math.min(Math.max(0, position), getItemCount() - 1));
@@ -4897,7 +7172,7 @@ public class FlexibleAdapter<T extends IFlexible>
 			if (position >= startPosition) {
 //				if (DEBUG)
 //					Log.v(TAG, "Adjust Selected position " + position + " to " + Math.max(position + itemCount, startPosition));
-				removeSelection(position);
+				removeAdjustedSelection(position);
 				addAdjustedSelection(Math.max(position + itemCount, startPosition));
 				adjusted = true;
 			}
@@ -4925,8 +7200,6 @@ public class FlexibleAdapter<T extends IFlexible>
 			}
 			super.onSaveInstanceState(outState);
 			// Save selection coherence
-			outState.putBoolean(EXTRA_CHILD, this.childSelected);
-			outState.putBoolean(EXTRA_PARENT, this.parentSelected);
 			outState.putInt(EXTRA_LEVEL, this.mSelectedLevel);
 			// Current filter. Old text is not saved otherwise animateTo() cannot be called
 			outState.putString(EXTRA_SEARCH, this.mSearchText);
@@ -4957,13 +7230,12 @@ public class FlexibleAdapter<T extends IFlexible>
 			}
 			// Restore selection state
 			super.onRestoreInstanceState(savedInstanceState);
+			selectedSubItemsCounted = false;
 			if (mScrollableHeaders.size() > 0) {
 				// We need to restore the added item positions if headers were added early
 				adjustSelected(0, mScrollableHeaders.size());
 			}
 			// Restore selection coherence
-			this.parentSelected = savedInstanceState.getBoolean(EXTRA_PARENT);
-			this.childSelected = savedInstanceState.getBoolean(EXTRA_CHILD);
 			this.mSelectedLevel = savedInstanceState.getInt(EXTRA_LEVEL);
 			// Current filter (old text must not be saved)
 			this.mSearchText = savedInstanceState.getString(EXTRA_SEARCH);
@@ -5153,6 +7425,23 @@ public class FlexibleAdapter<T extends IFlexible>
 		void onLoadMore(int lastPosition, int currentPage);
 	}
 
+	/**
+	 * @since 5.0.0-rc1
+	 */
+	public interface EndlessTopScrollListener {
+
+		/**
+		 * Loads the items preceding the first displayed item, then call
+		 * {@link FlexibleAdapter#onLoadMoreTopComplete(List)}.
+		 * <p>When the endless page window is set, load the page before {@code firstPage}: the
+		 * page numbers follow the pages loaded at the bottom, so they can also be negative.</p>
+		 *
+		 * @param firstPage the number of the page currently displayed at the top
+		 * @see FlexibleAdapter#setEndlessPageWindow(int)
+		 */
+		void onLoadMoreTop(int firstPage);
+	}
+
 	/**
 	 * Observer Class responsible to recalculate Selection and Expanded positions.
 	 */
@@ -5175,17 +7464,21 @@ public class FlexibleAdapter<T extends IFlexible>
 		/* Triggered by notifyDataSetChanged() */
 		@Override
 		public void onChanged() {
+			selectedSubItemsCounted = false;
+			childrenParentsMapped = false;
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeInserted(int positionStart, int itemCount) {
+			childrenParentsMapped = false;
 			adjustPositions(positionStart, itemCount);
 			updateOrClearHeader();
 		}
 
 		@Override
 		public void onItemRangeRemoved(int positionStart, int itemCount) {
+			childrenParentsMapped = false;
 			adjustPositions(positionStart, -itemCount);
 			updateOrClearHeader();
 		}
@@ -5197,10 +7490,96 @@ public class FlexibleAdapter<T extends IFlexible>
 
 		@Override
 		public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+			childrenParentsMapped = false;
 			updateOrClearHeader();
 		}
 	}
 
+	/**
+	 * Positions of the items in the filter source, by item and by header.
+	 */
+	private class SourceOrder {
+		final List<T> source;
+		final int size;
+		final Map<T, Integer> positions = new HashMap<>();
+		final Map<IHeader, List<Integer>> sections = new HashMap<>();
+		/* Items to filter always: not indexed or with a header not indexed */
+		final List<Integer> unindexed = new ArrayList<>();
+
+		SourceOrder(List<T> source) {
+			this.source = source;
+			this.size = source.size();
+			for (int position = 0; position < size; position++) {
+				T item = source.get(position);
+				positions.put(item, position);
+				IHeader header = getHeaderOf(item);
+				if (!mFilterIndex.contains(item) || header != null && !mFilterIndex.contains((T) header)) {
+					unindexed.add(position);
+				}
+				if (header != null) {
+					List<Integer> section = sections.get(header);
+					if (section == null) sections.put(header, section = new ArrayList<>());
+					section.add(position);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hidden and expanded flags computed by the filter in background, without modifying the
+	 * items, they are applied all together in the UI Thread.
+	 */
+	private class FilterMask {
+		final Map<T, Boolean> hiddenFlags = new HashMap<>();
+		final Map<IExpandable, Boolean> expandedFlags = new HashMap<>();
+		/* Expandable items that were expanded before they were filtered */
+		final Set<IExpandable> expandedBeforeFilter = new HashSet<>();
+		boolean resetExpandedFlags = false;
+
+		void setHidden(T item, boolean hidden) {
+			hiddenFlags.put(item, hidden);
+		}
+
+		boolean isHidden(T item) {
+			Boolean hidden = hiddenFlags.get(item);
+			return hidden != null ? hidden : item.isHidden();
+		}
+
+		void setExpanded(IExpandable expandable, boolean expanded) {
+			expandedFlags.put(expandable, expanded);
+		}
+
+		boolean isExpanded(IExpandable expandable) {
+			Boolean expanded = expandedFlags.get(expandable);
+			return expanded != null ? expanded : expandable.isExpanded();
+		}
+
+		void merge(FilterMask mask) {
+			hiddenFlags.putAll(mask.hiddenFlags);
+			expandedFlags.putAll(mask.expandedFlags);
+			expandedBeforeFilter.addAll(mask.expandedBeforeFilter);
+			resetExpandedFlags |= mask.resetExpandedFlags;
+		}
+
+		void apply() {
+			for (Map.Entry<T, Boolean> entry : hiddenFlags.entrySet()) {
+				entry.getKey().setHidden(entry.getValue());
+			}
+			for (Map.Entry<IExpandable, Boolean> entry : expandedFlags.entrySet()) {
+				entry.getKey().setExpanded(entry.getValue());
+			}
+			if (resetExpandedFlags) {
+				mExpandedFilterFlags = null;
+			} else if (!expandedBeforeFilter.isEmpty()) {
+				if (mExpandedFilterFlags == null)
+					mExpandedFilterFlags = new HashSet<>();
+				mExpandedFilterFlags.addAll(expandedBeforeFilter);
+			}
+			if (DEBUG) Log.v(TAG, "Applied filter flags hidden=" + hiddenFlags.size()
+					+ " expanded=" + expandedFlags.size());
+		}
+	}
+
 	private class RestoreInfo {
 		// Positions
 		int refPosition = -1, relativePosition = -1;
@@ -5273,16 +7652,247 @@ public class FlexibleAdapter<T extends IFlexible>
 		}
 	}
 
-	private class FilterAsyncTask extends AsyncTask<Void, Void, Void> {
+	/**
+	 * Bounded min-heap of the most relevant items collected by the filter. With the same
+	 * relevance, the item that comes first in the original list is preferred.
+	 */
+	private class RankedItems implements Comparator<RankedItems.Entry> {
+		final int limit;
+		final PriorityQueue<Entry> heap;
+		int order = 0;
+
+		RankedItems(int limit) {
+			this.limit = limit;
+			this.heap = new PriorityQueue<>(limit, this);
+		}
+
+		void offer(T item, float relevance) {
+			int itemOrder = order++;
+			if (heap.size() == limit) {
+				// Discard immediately the items worse than the worst result
+				Entry worst = heap.peek();
+				if (relevance < worst.relevance ||
+						(relevance == worst.relevance && itemOrder > worst.order)) return;
+				heap.poll();
+			}
+			heap.add(new Entry(item, relevance, itemOrder));
+		}
+
+		/**
+		 * @return the items from the most relevant
+		 */
+		List<T> getSortedItems() {
+			List<Entry> entries = new ArrayList<>(heap);
+			Collections.sort(entries, Collections.reverseOrder(this));
+			List<T> items = new ArrayList<>(entries.size());
+			for (Entry entry : entries) items.add(entry.item);
+			return items;
+		}
+
+		@Override
+		public int compare(Entry lhs, Entry rhs) {
+			int result = Float.compare(lhs.relevance, rhs.relevance);
+			// Later items are worse
+			return result != 0 ? result : rhs.order - lhs.order;
+		}
+
+		class Entry {
+			final T item;
+			final float relevance;
+			final int order;
+
+			Entry(T item, float relevance, int order) {
+				this.item = item;
+				this.relevance = relevance;
+				this.order = order;
+			}
+		}
+	}
+
+	/**
+	 * Endless page requested to the listener.
+	 */
+	private static class EndlessRequest {
+		final int page;
+		final long time = System.currentTimeMillis();
+
+		EndlessRequest(int page) {
+			this.page = page;
+		}
+	}
+
+	/**
+	 * Endless page completed by the user, with the items prepared in background.
+	 */
+	private class EndlessIngestion {
+		final List<T> items;
+		final long delay;
+		final String searchText;
+		List<T> flattened;
+		Set<IHeader> headers;
+		List<T> matches;
+		FilterMask mask;
+		boolean prepared = false;
+
+		EndlessIngestion(List<T> items, long delay, String searchText) {
+			this.items = items;
+			this.delay = delay;
+			this.searchText = searchText;
+		}
+	}
+
+	/**
+	 * Items of an endless page, as loaded.
+	 */
+	private class EndlessPage {
+		final int number;
+		final List<T> items;
+
+		EndlessPage(int number, List<T> items) {
+			this.number = number;
+			this.items = items;
+		}
+	}
+
+	/**
+	 * The first visible item, and its offset, before the items above it change. Restoring it
+	 * scrolls to the same item at the same offset, wherever it moved.
+	 */
+	private class ScrollAnchor {
+		T item;
+		int offset;
+
+		ScrollAnchor() {
+			if (mRecyclerView == null) return;
+			RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+			int position = Utils.findFirstVisibleItemPosition(layoutManager);
+			// The top progress item is going to be removed: anchor to the next item
+			if (position >= 0 && getItem(position) == mTopProgressItem) position++;
+			View view = layoutManager.findViewByPosition(position);
+			if (view == null) return;
+			item = getItem(position);
+			offset = layoutManager.getDecoratedTop(view) - layoutManager.getPaddingTop();
+		}
+
+		void restore() {
+			if (item == null) return;
+			int position = getGlobalPositionOf(item);
+			if (position < 0) return;
+			RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+			if (layoutManager instanceof LinearLayoutManager) {
+				((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+			} else if (layoutManager instanceof StaggeredGridLayoutManager) {
+				((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+			}
+		}
+	}
+
+	/**
+	 * Matches published by the progressive filter, with the flags to apply.
+	 */
+	private class FilterBatch {
+		final List<T> items;
+		final FilterMask mask;
+		final boolean first;
+
+		FilterBatch(List<T> items, FilterMask mask, boolean first) {
+			this.items = items;
+			this.mask = mask;
+			this.first = first;
+		}
+	}
+
+	/**
+	 * Inflates a ViewHolder each time the main thread is idle and puts it in the pool of the
+	 * RecyclerView, until the queue is empty. Without the AutoMap active, the queue is dropped
+	 * and scheduled again when the first ViewType is mapped.
+	 */
+	private class PreInflater implements MessageQueue.IdleHandler {
+		final LinkedList<Integer> viewTypes = new LinkedList<>();
+
+		@Override
+		public boolean queueIdle() {
+			if (mRecyclerView == null) return false;
+			if (!autoMap) {
+				for (Integer type : viewTypes) {
+					mPreInflated.put(type, mPreInflated.get(type) - 1);
+				}
+				mPreInflater = null;
+				return false;
+			}
+			Integer viewType = viewTypes.poll();
+			if (viewType != null && getViewTypeInstance(viewType) != null) {
+				long start = System.currentTimeMillis();
+				RecyclerView.ViewHolder holder = createViewHolder(mRecyclerView, viewType);
+				mRecyclerView.getRecycledViewPool().putRecycledView(holder);
+				if (DEBUG) Log.v(TAG, "Pre-inflated viewType " + viewType + " in "
+						+ (System.currentTimeMillis() - start) + "ms");
+			}
+			if (viewTypes.isEmpty()) {
+				mPreInflater = null;
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Loads the next page of the filter data source for the Endless Scroll.
+	 */
+	private class FilterPageAsyncTask extends AsyncTask<Void, Void, List<T>> {
+
+		private final String constraint;
+		private final int[] offset;
+		private final int generation;
+
+		FilterPageAsyncTask(String constraint, int offset) {
+			this.constraint = constraint;
+			this.offset = new int[]{offset};
+			this.generation = mFilterGeneration;
+		}
+
+		@Override
+		protected List<T> doInBackground(Void... params) {
+			return loadFilterPage(constraint, offset);
+		}
+
+		@Override
+		protected void onPostExecute(List<T> items) {
+			if (generation != mFilterGeneration || !constraint.equals(mSearchText)) {
+				// A new filter has been requested, it will load its own first page
+				if (DEBUG) Log.d(TAG, "onLoadMore     discarded filtered page for \"" + constraint + "\"");
+				completeEndlessRequest(0);
+				return;
+			}
+			onFilterPageLoaded(items, offset[0]);
+		}
+	}
+
+	private class FilterAsyncTask extends AsyncTask<Void, FilterBatch, Void> {
 
 		private final String TAG = FilterAsyncTask.class.getSimpleName();
 
 		private List<T> newItems;
 		private int what;
+		private FilterMask mask;
+		private final int generation;
 
 		FilterAsyncTask(int what, List<T> newItems) {
 			this.what = what;
 			this.newItems = newItems;
+			this.generation = ++mFilterGeneration;
+		}
+
+		@SuppressWarnings("unchecked")
+		void publishBatch(FilterBatch batch) {
+			publishProgress(batch);
+		}
+
+		@Override
+		protected void onProgressUpdate(FilterBatch... batches) {
+			// Discard the batches of a superseded filter
+			if (isCancelled() || generation != mFilterGeneration) return;
+			for (FilterBatch batch : batches) onFilterBatch(batch);
 		}
 
 		@Override
@@ -5307,7 +7917,7 @@ public class FlexibleAdapter<T extends IFlexible>
 					break;
 				case FILTER:
 					if (DEBUG) Log.d(TAG, "doInBackground - started FILTER");
-					filterItemsAsync(newItems);
+					mask = filterItemsAsync(newItems);
 					if (DEBUG) Log.d(TAG, "doInBackground - ended FILTER");
 					break;
 			}
@@ -5316,6 +7926,8 @@ public class FlexibleAdapter<T extends IFlexible>
 
 		@Override
 		protected void onPostExecute(Void result) {
+			// Apply the flags computed by the filter, before notifying the changes
+			if (mask != null) mask.apply();
 			if (diffResult != null || mNotifications != null) {
 				//Execute post data
 				switch (what) {
@@ -5411,6 +8023,13 @@ public class FlexibleAdapter<T extends IFlexible>
 			switch (message.what) {
 				case UPDATE: //updateDataSet OR
 				case FILTER: //filterItems
+					if (mLazyItems != null) {
+						// The lazy list filters its own items, paged items through the data source
+						if (mLazyItems instanceof PagedItemList)
+							((PagedItemList<T>) mLazyItems).setFilterDataSource(mFilterDataSource);
+						mLazyItems.filter(hasSearchText() ? mSearchText : null);
+						return true;
+					}
 					if (mFilterAsyncTask != null) mFilterAsyncTask.cancel(true);
 					mFilterAsyncTask = new FilterAsyncTask(message.what, (List<T>) message.obj);
 					mFilterAsyncTask.execute();
@@ -5418,6 +8037,7 @@ public class FlexibleAdapter<T extends IFlexible>
 				case CONFIRM_DELETE: //confirm delete
 					OnDeleteCompleteListener listener = (OnDeleteCompleteListener) message.obj;
 					if (listener != null) listener.onDeleteConfirmed();
+					removeFromFilterIndex(getDeletedItems());
 					emptyBin();
 					return true;
 				case LOAD_MORE_COMPLETE: //hide progress item
@@ -296,7 +296,9 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
 	 * @since 5.0.0-b7
 	 */
 	public final boolean addSelection(int position) {
-		return isSelectable(position) && mSelectedPositions.add(position);
+		if (!isSelectable(position) || !mSelectedPositions.add(position)) return false;
+		onSelectionChanged(position, true);
+		return true;
 	}
 
 	/**
@@ -318,9 +320,35 @@ public abstract class SelectableAdapter extends RecyclerView.Adapter
 	 * @since 5.0.0-b7
 	 */
 	public final boolean removeSelection(int position) {
+		if (!mSelectedPositions.remove(position)) return false;
+		onSelectionChanged(position, false);
+		return true;
+	}
+
+	/**
+	 * This method is used only internally to force adjust selection.
+	 *
+	 * @param position Position of the item to remove the selection status for.
+	 * @return true if the set is modified, false otherwise
+	 * @since 5.0.0-rc1
+	 */
+	final boolean removeAdjustedSelection(int position) {
 		return mSelectedPositions.remove(position);
 	}
 
+	/**
+	 * Called when {@link #addSelection(int)} or {@link #removeSelection(int)} have changed the
+	 * selection status of the item at the position. Adjusting the selected positions doesn't
+	 * call this method.
+	 * <p>Used internally to keep the counters of the selected items updated.</p>
+	 *
+	 * @param position the position of the item
+	 * @param selected the new selection status
+	 * @since 5.0.0-rc1
+	 */
+	void onSelectionChanged(int position, boolean selected) {
+	}
+
 	/**
 	 * Helper method to easily swap selection between 2 positions only if one of the positions
 	 * is <i>not</i> selected.
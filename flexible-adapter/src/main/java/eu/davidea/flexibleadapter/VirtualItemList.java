@@ -0,0 +1,420 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.flexibleadapter.items.IVirtualExpandable;
+
+/**
+ * List of the Adapter items when {@link IVirtualExpandable} items are expanded: only the main
+ * items are stored, the sub items of each expanded virtual group are counted in the size and
+ * retrieved by pages when they are requested, keeping only the most recently used pages.
+ * <p>Positions outside the virtual sub items can be modified as usual, while adding, removing
+ * or setting items inside a virtual group throws {@link IllegalStateException}.</p>
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see FlexibleAdapter#setVirtualSubItemsWindow(int, int)
+ * @since 27/01/2017 Created
+ */
+final class VirtualItemList<T extends IFlexible> extends AbstractList<T> {
+
+	private final List<T> mItems;
+	/* Expanded groups sorted by the index of their parent in the main items */
+	private final List<Group<T>> mGroups = new ArrayList<>();
+	private int mVirtualCount;
+	private int mPageSize, mMaxPages;
+
+	VirtualItemList(List<T> items, int pageSize, int maxPages) {
+		mItems = items;
+		mPageSize = pageSize;
+		mMaxPages = maxPages;
+	}
+
+	/**
+	 * @return a new empty list with the same window
+	 */
+	VirtualItemList<T> newEmptyList(int capacity) {
+		return new VirtualItemList<>(new ArrayList<T>(capacity), mPageSize, mMaxPages);
+	}
+
+	void setWindow(int pageSize, int maxPages) {
+		mPageSize = pageSize;
+		mMaxPages = maxPages;
+		for (Group<T> group : mGroups) {
+			synchronized (group.pages) {
+				group.pages.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the main items, without the virtual sub items
+	 */
+	List<T> getMainItems() {
+		return mItems;
+	}
+
+	/**
+	 * Counts the virtual sub items of the expandable at the position, without retrieving them.
+	 *
+	 * @param position   the position of the expandable
+	 * @param expandable the expandable item
+	 * @param count      the number of sub items
+	 */
+	void expand(int position, IVirtualExpandable expandable, T placeholder, int count) {
+		int index = getMainIndex(position);
+		if (index < 0 || mItems.get(index) != expandable) {
+			throw new IllegalStateException("Virtual expandable not found on position " + position);
+		}
+		int groupIndex = 0;
+		while (groupIndex < mGroups.size() && mGroups.get(groupIndex).parentIndex < index) groupIndex++;
+		mGroups.add(groupIndex, new Group<>(expandable, placeholder, count, index));
+		mVirtualCount += count;
+	}
+
+	/**
+	 * Removes the virtual sub items of the expandable.
+	 *
+	 * @return the number of sub items removed, 0 if the expandable is not expanded in this list
+	 */
+	int collapse(IVirtualExpandable expandable) {
+		for (int i = 0; i < mGroups.size(); i++) {
+			Group<T> group = mGroups.get(i);
+			if (group.expandable == expandable) {
+				mGroups.remove(i);
+				mVirtualCount -= group.count;
+				return group.count;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the number of virtual sub items of the expandable, -1 if it is not expanded in
+	 * this list
+	 */
+	int getVirtualCount(IVirtualExpandable expandable) {
+		for (Group<T> group : mGroups) {
+			if (group.expandable == expandable) return group.count;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the expandables currently expanded in this list
+	 */
+	List<IVirtualExpandable> getExpandables() {
+		List<IVirtualExpandable> expandables = new ArrayList<>(mGroups.size());
+		for (Group<T> group : mGroups) {
+			expandables.add(group.expandable);
+		}
+		return expandables;
+	}
+
+	/**
+	 * Appends to the target list the virtual sub items of the expandable, which must be the
+	 * last main item of the target list. The pages already retrieved are shared.
+	 *
+	 * @return the number of virtual sub items appended
+	 */
+	int copyGroupTo(VirtualItemList<T> target, IVirtualExpandable expandable) {
+		for (Group<T> group : mGroups) {
+			if (group.expandable == expandable) {
+				target.mGroups.add(new Group<>(group, target.mItems.size() - 1));
+				target.mVirtualCount += group.count;
+				return group.count;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param position the position to check
+	 * @return the position of the virtual expandable if the position holds one of its sub
+	 * items, -1 otherwise
+	 */
+	int getVirtualParentPosition(int position) {
+		int offset = 0;
+		for (Group<T> group : mGroups) {
+			int parentPosition = group.parentIndex + offset;
+			if (position <= parentPosition) return -1;
+			if (position <= parentPosition + group.count) return parentPosition;
+			offset += group.count;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the index in the main items of the position, -1 if the position holds a virtual
+	 * sub item
+	 */
+	private int getMainIndex(int position) {
+		int offset = 0;
+		for (Group<T> group : mGroups) {
+			int parentPosition = group.parentIndex + offset;
+			if (position <= parentPosition) break;
+			if (position <= parentPosition + group.count) return -1;
+			offset += group.count;
+		}
+		return position - offset;
+	}
+
+	/**
+	 * @return the index in the main items where an item added at the position is inserted
+	 */
+	private int getInsertionIndex(int position) {
+		int offset = 0;
+		for (Group<T> group : mGroups) {
+			int parentPosition = group.parentIndex + offset;
+			if (position <= parentPosition) break;
+			if (position <= parentPosition + group.count) {
+				throw new IllegalStateException("Cannot add items between the virtual sub items on position " + position);
+			}
+			offset += group.count;
+		}
+		return position - offset;
+	}
+
+	private void shiftGroups(int fromIndex, int delta) {
+		for (Group<T> group : mGroups) {
+			if (group.parentIndex >= fromIndex) group.parentIndex += delta;
+		}
+	}
+
+	private void checkMainIndex(int index, int position) {
+		if (index < 0) {
+			throw new IllegalStateException("Cannot modify the virtual sub item on position " + position);
+		}
+		for (Group<T> group : mGroups) {
+			if (group.parentIndex == index) {
+				throw new IllegalStateException("Collapse the virtual expandable on position " +
+						position + " before removing it");
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return mItems.size() + mVirtualCount;
+	}
+
+	@Override
+	public T get(int position) {
+		if (position < 0 || position >= size()) {
+			throw new IndexOutOfBoundsException("Position " + position + ", size " + size());
+		}
+		int offset = 0;
+		for (Group<T> group : mGroups) {
+			int parentPosition = group.parentIndex + offset;
+			if (position <= parentPosition) break;
+			if (position <= parentPosition + group.count) {
+				return group.getSubItem(position - parentPosition - 1, mPageSize, mMaxPages);
+			}
+			offset += group.count;
+		}
+		return mItems.get(position - offset);
+	}
+
+	@Override
+	public T set(int position, T item) {
+		int index = getMainIndex(position);
+		if (index < 0) {
+			throw new IllegalStateException("Cannot modify the virtual sub item on position " + position);
+		}
+		return mItems.set(index, item);
+	}
+
+	@Override
+	public void add(int position, T item) {
+		int index = getInsertionIndex(position);
+		mItems.add(index, item);
+		shiftGroups(index, 1);
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends T> items) {
+		return addAll(size(), items);
+	}
+
+	@Override
+	public boolean addAll(int position, Collection<? extends T> items) {
+		int index = getInsertionIndex(position);
+		if (!mItems.addAll(index, items)) return false;
+		shiftGroups(index, items.size());
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public T remove(int position) {
+		int index = getMainIndex(position);
+		checkMainIndex(index, position);
+		T item = mItems.remove(index);
+		shiftGroups(index + 1, -1);
+		modCount++;
+		return item;
+	}
+
+	/**
+	 * Removes also entire virtual groups, when all their sub items are in the range.
+	 */
+	@Override
+	protected void removeRange(int fromPosition, int toPosition) {
+		if (fromPosition >= toPosition) return;
+		int offset = 0, fromSubItems = 0, toSubItems = 0;
+		List<Group<T>> removed = new ArrayList<>();
+		for (Group<T> group : mGroups) {
+			int firstPosition = group.parentIndex + offset + 1;
+			int lastPosition = firstPosition + group.count - 1;
+			if (firstPosition >= fromPosition && lastPosition < toPosition) {
+				removed.add(group);
+			} else if (lastPosition >= fromPosition && firstPosition < toPosition) {
+				throw new IllegalStateException("Cannot remove part of the virtual sub items between " +
+						fromPosition + " and " + toPosition);
+			}
+			fromSubItems += Math.max(0, Math.min(group.count, fromPosition - firstPosition));
+			toSubItems += Math.max(0, Math.min(group.count, toPosition - firstPosition));
+			offset += group.count;
+		}
+		int fromIndex = fromPosition - fromSubItems, toIndex = toPosition - toSubItems;
+		for (Group<T> group : mGroups) {
+			if (group.parentIndex >= fromIndex && group.parentIndex < toIndex && !removed.contains(group)) {
+				throw new IllegalStateException("Collapse the virtual expandable before removing it");
+			}
+		}
+		for (Group<T> group : removed) {
+			mGroups.remove(group);
+			mVirtualCount -= group.count;
+		}
+		mItems.subList(fromIndex, toIndex).clear();
+		shiftGroups(toIndex, fromIndex - toIndex);
+		modCount++;
+	}
+
+	/**
+	 * Removes only main items: virtual sub items are not removed.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		boolean modified = false;
+		for (int index = mItems.size() - 1; index >= 0; index--) {
+			if (items.contains(mItems.get(index))) {
+				for (Group<T> group : mGroups) {
+					if (group.parentIndex == index) {
+						throw new IllegalStateException("Collapse the virtual expandable before removing it");
+					}
+				}
+				mItems.remove(index);
+				shiftGroups(index + 1, -1);
+				modified = true;
+			}
+		}
+		if (modified) modCount++;
+		return modified;
+	}
+
+	/**
+	 * Only the pages already retrieved are searched for virtual sub items.
+	 */
+	@Override
+	public int indexOf(Object item) {
+		int offset = 0, groupIndex = 0;
+		for (int index = 0; index < mItems.size(); index++) {
+			T mainItem = mItems.get(index);
+			if (item == null ? mainItem == null : item.equals(mainItem)) return index + offset;
+			while (groupIndex < mGroups.size() && mGroups.get(groupIndex).parentIndex == index) {
+				Group<T> group = mGroups.get(groupIndex++);
+				int subIndex = group.indexOfRetrieved(item, mPageSize);
+				if (subIndex >= 0) return index + offset + 1 + subIndex;
+				offset += group.count;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object item) {
+		return indexOf(item) >= 0;
+	}
+
+	private static class Group<T extends IFlexible> {
+		final IVirtualExpandable expandable;
+		final T placeholder;
+		final int count;
+		int parentIndex;
+		/* Pages of the retrieved sub items, in access order */
+		final LinkedHashMap<Integer, List<T>> pages;
+
+		Group(IVirtualExpandable expandable, T placeholder, int count, int parentIndex) {
+			this.expandable = expandable;
+			this.placeholder = placeholder;
+			this.count = count;
+			this.parentIndex = parentIndex;
+			this.pages = new LinkedHashMap<>(8, 0.75f, true);
+		}
+
+		Group(Group<T> group, int parentIndex) {
+			this.expandable = group.expandable;
+			this.placeholder = group.placeholder;
+			this.count = group.count;
+			this.parentIndex = parentIndex;
+			this.pages = group.pages;
+		}
+
+		@SuppressWarnings("unchecked")
+		T getSubItem(int subIndex, int pageSize, int maxPages) {
+			int page = subIndex / pageSize;
+			synchronized (pages) {
+				List<T> subItems = pages.get(page);
+				if (subItems == null) {
+					int start = page * pageSize, end = Math.min(count, start + pageSize);
+					subItems = new ArrayList<>(end - start);
+					for (int index = start; index < end; index++) {
+						T subItem = (T) expandable.getVirtualSubItem(index);
+						subItems.add(subItem != null ? subItem : placeholder);
+					}
+					pages.put(page, subItems);
+					// Release the least recently used pages
+					while (pages.size() > maxPages) {
+						pages.remove(pages.keySet().iterator().next());
+					}
+				}
+				return subItems.get(subIndex - page * pageSize);
+			}
+		}
+
+		int indexOfRetrieved(Object item, int pageSize) {
+			if (item == null) return -1;
+			synchronized (pages) {
+				for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+					int index = entry.getValue().indexOf(item);
+					if (index >= 0) return entry.getKey() * pageSize + index;
+				}
+			}
+			return -1;
+		}
+	}
+
+}
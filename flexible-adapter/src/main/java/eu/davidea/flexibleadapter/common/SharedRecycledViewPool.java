@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.common;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+
+/**
+ * RecycledViewPool shared by multiple RecyclerViews (for instance, the pages of a ViewPager),
+ * so the layouts inflated for a list are reused by the others instead of being inflated again.
+ * <p>With AutoMap the ViewTypes are the layout resources of the items
+ * ({@link eu.davidea.flexibleadapter.items.IFlexible#getLayoutRes()}), therefore the
+ * ViewHolders of the same layout are shared among all the FlexibleAdapters; the Adapter
+ * binding a ViewHolder created by another Adapter takes it over.</p>
+ * The maximum number of recycled views of each ViewType is tuned from the observed demand: for
+ * each attached RecyclerView, the children attached at the same time are counted per ViewType
+ * and the maximum becomes the peak count plus some extra views. Maximums are only raised.
+ * <p><b>Note:</b> Items sharing the same layout must create the same ViewHolder class. Use
+ * {@link android.support.v7.widget.LinearLayoutManager#setRecycleChildrenOnDetach(boolean)}
+ * so the ViewHolders of a detached list return to the pool.</p>
+ * <b>Note:</b> Only the binding is repeated for the Adapter taking over a ViewHolder: the state
+ * captured in the ViewHolder constructor reflects the Adapter that created it. For instance, a
+ * holder that shows the drag handle only if {@code adapter.isHandleDragEnabled()} when
+ * created, keeps that visibility in the lists with a different setting. Apply such settings in
+ * {@code bindViewHolder()} or don't share the pool among Adapters configured differently.
+ *
+ * @author Davide Steduto
+ * @since 26/01/2017 Created
+ */
+public class SharedRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+	private static final String TAG = SharedRecycledViewPool.class.getSimpleName();
+	/**
+	 * The default maximum number of recycled views of each ViewType in a RecycledViewPool.
+	 */
+	public static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+	private final Map<RecyclerView, DemandTracker> mTrackers = new HashMap<>();
+	/* Peak of the children attached at the same time to a single RecyclerView, per ViewType */
+	private final SparseIntArray mPeaks = new SparseIntArray();
+	private final SparseIntArray mMaxRecycledViews = new SparseIntArray();
+	private int mExtraViews = 2;
+
+	/**
+	 * Sets this pool to the RecyclerView and starts to observe its demand of ViewHolders.
+	 * <p>Call it before setting the Adapter.</p>
+	 *
+	 * @param recyclerView the RecyclerView sharing this pool
+	 */
+	public void attach(@NonNull RecyclerView recyclerView) {
+		if (mTrackers.containsKey(recyclerView)) return;
+		DemandTracker tracker = new DemandTracker(recyclerView);
+		recyclerView.setRecycledViewPool(this);
+		recyclerView.addOnChildAttachStateChangeListener(tracker);
+		mTrackers.put(recyclerView, tracker);
+	}
+
+	/**
+	 * Stops to observe the RecyclerView, usually when its View is destroyed. The observed peaks
+	 * are kept.
+	 *
+	 * @param recyclerView the RecyclerView to release
+	 */
+	public void detach(@NonNull RecyclerView recyclerView) {
+		DemandTracker tracker = mTrackers.remove(recyclerView);
+		if (tracker != null) recyclerView.removeOnChildAttachStateChangeListener(tracker);
+	}
+
+	/**
+	 * Sets the number of views kept in the pool in addition to the peak demand of each
+	 * ViewType, for the views prefetched and cached by the RecyclerViews.
+	 * <p>Default value is 2.</p>
+	 *
+	 * @param extraViews the number of extra views
+	 * @return this pool, so the call can be chained
+	 */
+	public SharedRecycledViewPool setExtraViews(@IntRange(from = 0) int extraViews) {
+		mExtraViews = Math.max(0, extraViews);
+		return this;
+	}
+
+	/**
+	 * @param viewType the ViewType
+	 * @return the peak of the children of the ViewType attached at the same time to a single
+	 * RecyclerView
+	 */
+	public int getPeakCount(int viewType) {
+		return mPeaks.get(viewType);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The maximum is only raised: the lower value requested by a list would discard the
+	 * views needed by the others.</p>
+	 */
+	@Override
+	public void setMaxRecycledViews(int viewType, int max) {
+		if (max <= mMaxRecycledViews.get(viewType, DEFAULT_MAX_RECYCLED_VIEWS)) return;
+		mMaxRecycledViews.put(viewType, max);
+		super.setMaxRecycledViews(viewType, max);
+	}
+
+	private void onDemand(int viewType, int count) {
+		if (count <= mPeaks.get(viewType)) return;
+		mPeaks.put(viewType, count);
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Peak of viewType " + viewType + " is " + count);
+		setMaxRecycledViews(viewType, count + mExtraViews);
+	}
+
+	/**
+	 * Counts the children attached to a RecyclerView, per ViewType.
+	 */
+	private class DemandTracker implements RecyclerView.OnChildAttachStateChangeListener {
+		final RecyclerView recyclerView;
+		final SparseIntArray attached = new SparseIntArray();
+
+		DemandTracker(RecyclerView recyclerView) {
+			this.recyclerView = recyclerView;
+		}
+
+		@Override
+		public void onChildViewAttachedToWindow(View view) {
+			RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+			if (holder == null) return;
+			int viewType = holder.getItemViewType();
+			int count = attached.get(viewType) + 1;
+			attached.put(viewType, count);
+			onDemand(viewType, count);
+		}
+
+		@Override
+		public void onChildViewDetachedFromWindow(View view) {
+			RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+			if (holder == null) return;
+			int viewType = holder.getItemViewType();
+			attached.put(viewType, Math.max(0, attached.get(viewType) - 1));
+		}
+	}
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFilterable;
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.flexibleadapter.items.IIndexable;
+
+/**
+ * Typo tolerant index of the words of the {@link IIndexable#getIndexText()} of the items.
+ * <p>The words are stored in a BK-tree by edit distance (Levenshtein), so the words similar to
+ * a searched word are retrieved without comparing all of them. An item matches when each word
+ * of the search text is similar to a word of the item; the last word, that could be still
+ * typed, matches also the words starting with it.</p>
+ * The allowed distance depends on the length of the searched word: none for words shorter
+ * than 3 characters, 1 up to 5 characters, then the maximum distance.
+ * <p>This index is {@link #isExact() exact}: the filter of the indexed items is not called.</p>
+ * Removed words are kept in the tree until they exceed the live words, then the tree
+ * is rebuilt.
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see FilterIndex
+ * @since 18/01/2017 Created
+ */
+public class BKTreeFilterIndex<T extends IFlexible> implements FilterIndex<T> {
+
+	private static final String TAG = BKTreeFilterIndex.class.getSimpleName();
+	public static final int DEFAULT_MAX_DISTANCE = 2;
+	private static final int MIN_REBUILD_COUNT = 1024;
+
+	private final int mMaxDistance;
+	private Node mRoot;
+	private int mRemovedWords = 0;
+	/* Items containing each word, sorted to find the words by prefix */
+	private final TreeMap<String, Set<T>> mPostings = new TreeMap<>();
+	/* Root and words of each indexed item */
+	private final Map<T, T> mRoots = new HashMap<>();
+	private final Map<T, Set<String>> mWords = new HashMap<>();
+	private final Map<T, List<T>> mChildren = new HashMap<>();
+	private final Set<T> mUnresolvedRoots = new HashSet<>();
+
+	public BKTreeFilterIndex() {
+		this(DEFAULT_MAX_DISTANCE);
+	}
+
+	/**
+	 * @param maxDistance the maximum edit distance for long words
+	 */
+	public BKTreeFilterIndex(@IntRange(from = 0) int maxDistance) {
+		if (maxDistance < 0) throw new IllegalArgumentException("Distance cannot be negative");
+		mMaxDistance = maxDistance;
+	}
+
+	/**
+	 * @return the number of the items currently indexed, sub items included
+	 */
+	public synchronized int size() {
+		return mRoots.size();
+	}
+
+	@Override
+	public synchronized void add(@NonNull T item) {
+		if (mRoots.containsKey(item)) {
+			update(item);
+		} else {
+			addInternal(item, item);
+		}
+	}
+
+	@Override
+	public synchronized void remove(@NonNull T item) {
+		if (!mRoots.containsKey(item)) return;
+		removeInternal(item);
+		mUnresolvedRoots.remove(item);
+		if (mRemovedWords > MIN_REBUILD_COUNT && mRemovedWords > mPostings.size()) rebuild();
+	}
+
+	@Override
+	public synchronized void update(@NonNull T item) {
+		T root = mRoots.get(item);
+		if (root == null) root = item;
+		removeInternal(item);
+		addInternal(item, root);
+	}
+
+	@Override
+	public synchronized void clear() {
+		mRoot = null;
+		mRemovedWords = 0;
+		mPostings.clear();
+		mRoots.clear();
+		mWords.clear();
+		mChildren.clear();
+		mUnresolvedRoots.clear();
+	}
+
+	@Override
+	public synchronized boolean contains(@NonNull T item) {
+		return mRoots.containsKey(item);
+	}
+
+	@Override
+	public boolean isExact() {
+		return true;
+	}
+
+	@Nullable
+	@Override
+	public synchronized Set<T> getCandidates(@NonNull String constraint) {
+		String[] words = splitWords(constraint);
+		if (words.length == 0) return null;
+		Set<T> matches = null;
+		for (int i = 0; i < words.length; i++) {
+			Set<T> wordMatches = new HashSet<>();
+			for (String word : findWords(words[i], i == words.length - 1)) {
+				wordMatches.addAll(mPostings.get(word));
+			}
+			if (matches == null) matches = wordMatches;
+			else matches.retainAll(wordMatches);
+			if (matches.isEmpty()) break;
+		}
+		// Matching items with their roots
+		Set<T> candidates = new HashSet<>(mUnresolvedRoots);
+		for (T item : matches) {
+			candidates.add(item);
+			candidates.add(mRoots.get(item));
+		}
+		if (FlexibleAdapter.DEBUG)
+			Log.v(TAG, "Candidates for \"" + constraint + "\" " + candidates.size() + "/" + mRoots.size());
+		return candidates;
+	}
+
+	/**
+	 * @return the indexed words similar to the word and, optionally, starting with it
+	 */
+	private Set<String> findWords(String word, boolean prefix) {
+		Set<String> words = new HashSet<>();
+		int maxDistance = word.length() < 3 ? 0 : (word.length() < 6 ? Math.min(1, mMaxDistance) : mMaxDistance);
+		if (prefix) {
+			// Words starting with the prefix
+			for (String indexed : mPostings.subMap(word, word + Character.MAX_VALUE).keySet()) {
+				words.add(indexed);
+			}
+		}
+		if (mRoot == null) return words;
+		// Visit only the children within the triangle inequality
+		Deque<Node> nodes = new ArrayDeque<>();
+		nodes.push(mRoot);
+		while (!nodes.isEmpty()) {
+			Node node = nodes.pop();
+			int distance = distance(word, node.word);
+			if (distance <= maxDistance && mPostings.containsKey(node.word)) {
+				words.add(node.word);
+			}
+			if (node.children == null) continue;
+			for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+				Node child = node.children.get(d);
+				if (child != null) nodes.push(child);
+			}
+		}
+		return words;
+	}
+
+	private String[] splitWords(String text) {
+		String trimmed = SearchKey.normalize(text).trim();
+		return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+	}
+
+	private void addInternal(T item, T root) {
+		mRoots.put(item, root);
+		if (item instanceof IIndexable) {
+			String text = ((IIndexable) item).getIndexText();
+			Set<String> words = new HashSet<>();
+			if (text != null) {
+				for (String word : splitWords(text)) words.add(word);
+			}
+			mWords.put(item, words);
+			for (String word : words) {
+				Set<T> items = mPostings.get(word);
+				if (items == null) {
+					items = new HashSet<>();
+					mPostings.put(word, items);
+					insertWord(word);
+				}
+				items.add(item);
+			}
+		} else if (item instanceof IFilterable) {
+			// The index cannot say anything about this item
+			mUnresolvedRoots.add(root);
+		}
+		if (item instanceof IExpandable) {
+			List<T> subItems = ((IExpandable) item).getSubItems();
+			if (subItems != null && !subItems.isEmpty()) {
+				List<T> children = new ArrayList<>(subItems);
+				mChildren.put(item, children);
+				for (T child : children) {
+					if (!mRoots.containsKey(child)) addInternal(child, root);
+				}
+			}
+		}
+	}
+
+	private void removeInternal(T item) {
+		if (mRoots.remove(item) == null) return;
+		Set<String> words = mWords.remove(item);
+		if (words != null) {
+			for (String word : words) {
+				Set<T> items = mPostings.get(word);
+				if (items != null && items.remove(item) && items.isEmpty()) {
+					// The word remains in the tree until the next rebuild
+					mPostings.remove(word);
+					mRemovedWords++;
+				}
+			}
+		}
+		List<T> children = mChildren.remove(item);
+		if (children != null) {
+			for (T child : children) removeInternal(child);
+		}
+	}
+
+	private void insertWord(String word) {
+		if (mRoot == null) {
+			mRoot = new Node(word);
+			return;
+		}
+		Node node = mRoot;
+		while (true) {
+			int distance = distance(word, node.word);
+			if (distance == 0) return;
+			if (node.children == null) node.children = new HashMap<>();
+			Node child = node.children.get(distance);
+			if (child == null) {
+				node.children.put(distance, new Node(word));
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Builds again the tree with the live words only.
+	 */
+	private void rebuild() {
+		if (FlexibleAdapter.DEBUG)
+			Log.d(TAG, "Rebuilding tree, removed=" + mRemovedWords + " live=" + mPostings.size());
+		mRoot = null;
+		mRemovedWords = 0;
+		for (String word : mPostings.keySet()) insertWord(word);
+	}
+
+	/**
+	 * Levenshtein distance between two words.
+	 */
+	static int distance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) previous[j] = j;
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+						previous[j - 1] + cost);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	private static class Node {
+		final String word;
+		Map<Integer, Node> children;
+
+		Node(String word) {
+			this.word = word;
+		}
+	}
+
+}
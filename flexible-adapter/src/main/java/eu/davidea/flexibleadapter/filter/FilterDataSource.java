@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Source to which {@link eu.davidea.flexibleadapter.FlexibleAdapter} delegates the filter,
+ * so the unfiltered items don't need to be in memory: for instance a SQL query with a
+ * {@code LIKE} or {@code MATCH} clause, or a prebuilt search index.
+ * <p>Only the matching items are loaded, one page at the time: the first page when the
+ * filter is executed, the next pages with the Endless Scroll while the user scrolls the
+ * results.</p>
+ * <b>Note:</b> Pages are always loaded in a background thread.
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setFilterDataSource(FilterDataSource, int)
+ * @since 21/01/2017 Created
+ */
+public interface FilterDataSource<T extends IFlexible> {
+
+	/**
+	 * Loads a page of the items matching the search text, in a stable order.
+	 * <p>A page smaller than the requested limit is the last one.</p>
+	 *
+	 * @param constraint the search text, lowercase
+	 * @param offset     the number of the matching items already loaded
+	 * @param limit      the maximum number of the items to load
+	 * @return the matching items of the page, empty or null if there are no more
+	 */
+	@Nullable
+	List<T> loadFilteredItems(@NonNull String constraint, @IntRange(from = 0) int offset,
+							  @IntRange(from = 1) int limit);
+
+}
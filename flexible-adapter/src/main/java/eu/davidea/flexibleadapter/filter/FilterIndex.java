@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.flexibleadapter.items.IIndexable;
+
+/**
+ * Search index used by {@link eu.davidea.flexibleadapter.FlexibleAdapter} to pre-select the
+ * items that can match the search text, without scanning all of them.
+ * <p>The index is maintained incrementally by the Adapter when items are added, removed
+ * or updated. Items are indexed with their sub items; a sub item always points to its
+ * <i>root</i> item, the item that is in the list passed to the filter.</p>
+ * <b>Note:</b> Implementations are accessed by the UI thread (changes) and by the filter thread
+ * (queries), so they must be thread safe.
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see IIndexable
+ * @see NGramFilterIndex
+ * @see MappedFilterIndex
+ * @since 16/01/2017 Created
+ */
+public interface FilterIndex<T extends IFlexible> {
+
+	/**
+	 * Indexes the item and, if it's an expandable, its sub items. Items that are not
+	 * {@link IIndexable} are ignored.
+	 *
+	 * @param item the root item to index
+	 */
+	void add(@NonNull T item);
+
+	/**
+	 * Removes the item and its sub items from the index.
+	 *
+	 * @param item the item to remove
+	 */
+	void remove(@NonNull T item);
+
+	/**
+	 * Indexes again the item and its sub items, keeping the same root.
+	 *
+	 * @param item the item with the new content
+	 */
+	void update(@NonNull T item);
+
+	/**
+	 * Removes all the items from the index.
+	 */
+	void clear();
+
+	/**
+	 * @param item the item to check
+	 * @return true if the item is currently indexed, false otherwise
+	 */
+	boolean contains(@NonNull T item);
+
+	/**
+	 * Tells how the Adapter uses the candidates:
+	 * <ul><li>not exact: the candidates are only a pre-selection, each of them is verified
+	 * with {@link eu.davidea.flexibleadapter.items.IFilterable#filter(String)};</li>
+	 * <li>exact: the candidates are the matching items, at any level, plus their roots; the
+	 * filter is not called for the indexed items.</li></ul>
+	 *
+	 * @return true if the candidates are exactly the matching items, false otherwise
+	 */
+	boolean isExact();
+
+	/**
+	 * Resolves the search text to the root items that may match it. Indexed items that are not
+	 * returned, certainly don't match.
+	 *
+	 * @param constraint the search text, lowercase
+	 * @return the candidate root items (and the matching items if the index is
+	 * {@link #isExact() exact}), or {@code null} if the index cannot resolve the text
+	 * and all the items must be filtered
+	 * @see #isExact()
+	 */
+	@Nullable
+	Set<T> getCandidates(@NonNull String constraint);
+
+}
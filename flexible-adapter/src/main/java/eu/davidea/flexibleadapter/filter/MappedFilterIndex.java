@@ -0,0 +1,626 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFilterable;
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.flexibleadapter.items.IHeader;
+import eu.davidea.flexibleadapter.items.IIndexable;
+import eu.davidea.flexibleadapter.items.ISectionable;
+
+/**
+ * N-gram index written once to a local file and memory mapped at the next start, so the
+ * postings are queried directly from the file without reading or deserializing them.
+ * <p>Build the index with {@link #write(File, long, List, int)} and open it with
+ * {@link #open(File, long, List)}, passing the same items in the same order: items are
+ * identified by their position in the depth-first visit of the list (sub items and headers
+ * included), so opening costs only a walk of the items, no text is processed.</p>
+ * The file records a format version and the version of the data it was built from: when
+ * one of them doesn't match, {@code open} returns {@code null} and the index must be written
+ * again.
+ * <p>Changes after the opening are kept in memory: removed and updated items are excluded from
+ * the mapped postings and the updated or new items are indexed in an {@link NGramFilterIndex}
+ * overlay. When the changes grow ({@link #needsRebuild()}), {@link #rebuild(File, long)}
+ * writes the current content to the file and maps it again.</p>
+ * <b>Note:</b> Items added again after {@link #clear()} (as the Adapter does when the data set
+ * is updated) are restored from the file: content changes must always be notified with
+ * {@link #update(IFlexible)}.
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see FilterIndex
+ * @see NGramFilterIndex
+ * @since 20/01/2017 Created
+ */
+public class MappedFilterIndex<T extends IFlexible> implements FilterIndex<T> {
+
+	private static final String TAG = MappedFilterIndex.class.getSimpleName();
+	private static final int MAGIC = 0x46414958;//"FAIX"
+	public static final int FORMAT_VERSION = 1;
+	/* magic, format, data version, gram length, items, unresolved, grams, postings */
+	private static final int HEADER_SIZE = 36;
+	/* Rebuild when the changes exceed this fraction of the mapped items */
+	private static final float REBUILD_RATIO = 0.25f;
+
+	private File mFile;
+	private MappedByteBuffer mBuffer;
+	private long mDataVersion;
+	private int mGramLength;
+	private int mItemCount;
+	private int mGramCount;
+	/* Offsets of the sections in the file */
+	private int mRootsOffset, mEndsOffset, mUnresolvedOffset, mUnresolvedCount,
+			mDirectoryOffset, mPostingsOffset;
+
+	/* Mapped items by id and the reverse lookup */
+	private T[] mItems;
+	private final Map<T, Integer> mIds = new HashMap<>();
+	/* Mapped ids currently not in the index and ids with outdated postings */
+	private final BitSet mRemoved = new BitSet();
+	private final BitSet mStale = new BitSet();
+	private int mStaleCount = 0;
+
+	/* Changes after the opening */
+	private NGramFilterIndex<T> mOverlay;
+	private final Set<T> mOverlayItems = new LinkedHashSet<>();
+	private final Map<T, T> mOverlayRoots = new HashMap<>();
+
+	private MappedFilterIndex() {
+	}
+
+	/**
+	 * Writes the index of the items to the file, replacing it. The items are visited in depth
+	 * with their sub items and headers, the same visit is done when the index is opened.
+	 * <p>Call it from a background thread: all the index texts are processed.</p>
+	 *
+	 * @param file        the index file
+	 * @param dataVersion the version of the items, checked when the file is opened
+	 * @param items       the root items to index
+	 * @param gramLength  the length of the n-grams
+	 * @param <T>         the type of the items
+	 * @throws IOException if the file cannot be written
+	 */
+	public static <T extends IFlexible> void write(@NonNull File file, long dataVersion,
+												   @NonNull List<T> items,
+												   @IntRange(from = 1) int gramLength)
+			throws IOException {
+		if (gramLength < 1) throw new IllegalArgumentException("Gram length must be positive");
+		long start = System.currentTimeMillis();
+		List<T> visited = new ArrayList<>();
+		IntArray roots = new IntArray(), ends = new IntArray();
+		visit(items, visited, roots, ends);
+		// Collect the sorted grams, ids are added in increasing order
+		TreeMap<String, IntArray> postings = new TreeMap<>();
+		IntArray unresolved = new IntArray();
+		Set<String> grams = new HashSet<>();
+		int postingCount = 0;
+		for (int id = 0; id < visited.size(); id++) {
+			T item = visited.get(id);
+			if (item instanceof IIndexable) {
+				String text = ((IIndexable) item).getIndexText();
+				if (text == null) continue;
+				grams.clear();
+				collectGrams(text, gramLength, grams);
+				for (String gram : grams) {
+					IntArray posting = postings.get(gram);
+					if (posting == null) {
+						posting = new IntArray();
+						postings.put(gram, posting);
+					}
+					posting.add(id);
+				}
+				postingCount += grams.size();
+			} else if (item instanceof IFilterable) {
+				unresolved.add(id);
+			}
+		}
+		// Write to a temporary file and replace the old one only when complete
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(dataVersion);
+			out.writeInt(gramLength);
+			out.writeInt(visited.size());
+			out.writeInt(unresolved.size);
+			out.writeInt(postings.size());
+			out.writeInt(postingCount);
+			roots.writeTo(out);
+			ends.writeTo(out);
+			unresolved.writeTo(out);
+			// Directory: fixed size entries to allow the binary search
+			int offset = 0;
+			for (Map.Entry<String, IntArray> entry : postings.entrySet()) {
+				out.writeChars(entry.getKey());
+				out.writeInt(offset);
+				out.writeInt(entry.getValue().size);
+				offset += entry.getValue().size;
+			}
+			for (IntArray posting : postings.values()) {
+				posting.writeTo(out);
+			}
+		} finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Cannot replace index file " + file);
+		}
+		if (FlexibleAdapter.DEBUG)
+			Log.d(TAG, "Written index of " + visited.size() + " items, " + postings.size()
+					+ " grams in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * Maps the index file, without reading the postings.
+	 *
+	 * @param file        the index file
+	 * @param dataVersion the expected version of the items
+	 * @param items       the same root items, in the same order, used to write the index
+	 * @param <T>         the type of the items
+	 * @return the index, or {@code null} if the file doesn't exist or it has been written by a
+	 * different format version or for different items: in this case write it again
+	 * @throws IOException if the file cannot be read
+	 */
+	@Nullable
+	public static <T extends IFlexible> MappedFilterIndex<T> open(@NonNull File file, long dataVersion,
+																  @NonNull List<T> items)
+			throws IOException {
+		if (!file.exists()) return null;
+		MappedFilterIndex<T> index = new MappedFilterIndex<>();
+		if (!index.map(file, dataVersion, items)) {
+			if (FlexibleAdapter.DEBUG) Log.w(TAG, "Index file " + file + " is outdated");
+			return null;
+		}
+		return index;
+	}
+
+	/**
+	 * Opens the index file or, if it's missing or outdated, writes it first.
+	 *
+	 * @param file        the index file
+	 * @param dataVersion the version of the items
+	 * @param items       the root items
+	 * @param gramLength  the length of the n-grams used if the index is written
+	 * @param <T>         the type of the items
+	 * @return the index
+	 * @throws IOException if the file cannot be read or written
+	 * @see #open(File, long, List)
+	 * @see #write(File, long, List, int)
+	 */
+	@NonNull
+	public static <T extends IFlexible> MappedFilterIndex<T> openOrWrite(@NonNull File file, long dataVersion,
+																		 @NonNull List<T> items,
+																		 @IntRange(from = 1) int gramLength)
+			throws IOException {
+		MappedFilterIndex<T> index = open(file, dataVersion, items);
+		if (index == null) {
+			write(file, dataVersion, items, gramLength);
+			index = open(file, dataVersion, items);
+			if (index == null) throw new IOException("Cannot open index file " + file);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the version of the items the mapped file was written from
+	 */
+	public synchronized long getDataVersion() {
+		return mDataVersion;
+	}
+
+	/**
+	 * @return the length of the n-grams
+	 */
+	public synchronized int getGramLength() {
+		return mGramLength;
+	}
+
+	/**
+	 * @return true when the changes kept in memory are so many that the file should be
+	 * written again with {@link #rebuild(File, long)}
+	 */
+	public synchronized boolean needsRebuild() {
+		return mStaleCount + mOverlayItems.size() > mItemCount * REBUILD_RATIO;
+	}
+
+	/**
+	 * Writes the current content of the index, changes included, to the file and maps it.
+	 * The mapped items not removed, updated included, keep their order, the new items follow.
+	 * <p>Call it from a background thread: all the index texts are processed.</p>
+	 *
+	 * @param file        the index file, can be the same file currently mapped
+	 * @param dataVersion the new version of the items
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void rebuild(@NonNull File file, long dataVersion) throws IOException {
+		List<T> roots = new ArrayList<>();
+		for (int id = 0; id < mItemCount; id++) {
+			// Updated roots are excluded from the mapped postings but still in the index
+			if (isMappedRoot(id) && (!mRemoved.get(id) || mOverlayItems.contains(mItems[id]))) {
+				roots.add(mItems[id]);
+			}
+		}
+		for (T item : mOverlayItems) {
+			Integer id = mIds.get(item);
+			if (id == null || (mRemoved.get(id) && !isMappedRoot(id))) roots.add(item);
+		}
+		write(file, dataVersion, roots, mGramLength);
+		if (!map(file, dataVersion, roots)) throw new IOException("Cannot open index file " + file);
+	}
+
+	@Override
+	public synchronized void add(@NonNull T item) {
+		Integer id = mIds.get(item);
+		if (id != null && isMappedRoot(id) && !mStale.get(id)) {
+			// Restore the mapped content, except the updated sub items: indexed again in memory
+			int end = getEnd(id);
+			for (int i = id; i < end; i++) {
+				if (mStale.get(i)) {
+					addToOverlay(mItems[i], item);
+					i = getEnd(i) - 1;
+				} else {
+					mRemoved.clear(i);
+				}
+			}
+		} else if (!contains(item)) {
+			addToOverlay(item, item);
+		} else {
+			update(item);
+		}
+	}
+
+	@Override
+	public synchronized void remove(@NonNull T item) {
+		Integer id = mIds.get(item);
+		if (id != null && !mRemoved.get(id)) markStale(id);
+		removeFromOverlay(item);
+	}
+
+	@Override
+	public synchronized void update(@NonNull T item) {
+		T root = item;
+		Integer id = mIds.get(item);
+		if (id != null) {
+			root = mItems[mBuffer.getInt(mRootsOffset + id * 4)];
+			if (!mRemoved.get(id)) markStale(id);
+		} else if (mOverlayRoots.containsKey(item)) {
+			root = mOverlayRoots.get(item);
+		}
+		removeFromOverlay(item);
+		addToOverlay(item, root);
+	}
+
+	@Override
+	public synchronized void clear() {
+		mRemoved.set(0, mItemCount);
+		mOverlay.clear();
+		mOverlayItems.clear();
+		mOverlayRoots.clear();
+	}
+
+	@Override
+	public synchronized boolean contains(@NonNull T item) {
+		Integer id = mIds.get(item);
+		return (id != null && !mRemoved.get(id)) || mOverlay.contains(item);
+	}
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+	@Nullable
+	@Override
+	public synchronized Set<T> getCandidates(@NonNull String constraint) {
+		Set<String> grams = new HashSet<>();
+		collectGrams(constraint, mGramLength, grams);
+		if (grams.isEmpty()) return null;
+		Set<T> candidates = new HashSet<>();
+		// Changes
+		Set<T> overlayCandidates = mOverlay.getCandidates(constraint);
+		if (overlayCandidates != null) {
+			for (T candidate : overlayCandidates) {
+				T root = mOverlayRoots.get(candidate);
+				candidates.add(root != null ? root : candidate);
+			}
+		}
+		// Mapped items without index text
+		for (int i = 0; i < mUnresolvedCount; i++) {
+			addMappedCandidate(mBuffer.getInt(mUnresolvedOffset + i * 4), candidates);
+		}
+		// Mapped postings, intersected starting from the shortest
+		int[] entries = new int[grams.size()];
+		int count = 0;
+		for (String gram : grams) {
+			int entry = findGram(gram);
+			if (entry < 0) return candidates;
+			entries[count++] = entry;
+		}
+		int shortest = 0;
+		for (int i = 1; i < count; i++) {
+			if (getPostingSize(entries[i]) < getPostingSize(entries[shortest])) shortest = i;
+		}
+		int[] ids = readPosting(entries[shortest]);
+		int size = ids.length;
+		for (int i = 0; i < count && size > 0; i++) {
+			if (i != shortest) size = retainAll(entries[i], ids, size);
+		}
+		for (int i = 0; i < size; i++) {
+			addMappedCandidate(ids[i], candidates);
+		}
+		if (FlexibleAdapter.DEBUG)
+			Log.v(TAG, "Candidates for \"" + constraint + "\" " + candidates.size() + "/" + mItemCount);
+		return candidates;
+	}
+
+	/**
+	 * Maps the file and resolves the ids visiting the items.
+	 *
+	 * @return false if the file doesn't match the format, the data version or the items
+	 */
+	private boolean map(File file, long dataVersion, List<T> items) throws IOException {
+		MappedByteBuffer buffer;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) return false;
+			// The mapping remains valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			randomAccessFile.close();
+		}
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+				|| buffer.getLong(8) != dataVersion) return false;
+		int gramLength = buffer.getInt(16);
+		int itemCount = buffer.getInt(20);
+		int unresolvedCount = buffer.getInt(24);
+		int gramCount = buffer.getInt(28);
+		int postingCount = buffer.getInt(32);
+		long expectedSize = HEADER_SIZE + (2L * itemCount + unresolvedCount + postingCount) * 4
+				+ (long) gramCount * (gramLength * 2 + 8);
+		if (gramLength < 1 || buffer.capacity() != expectedSize) return false;
+		// Resolve the ids with the same visit done when writing
+		List<T> visited = new ArrayList<>(itemCount);
+		visit(items, visited, null, null);
+		if (visited.size() != itemCount) return false;
+
+		mFile = file;
+		mBuffer = buffer;
+		mDataVersion = dataVersion;
+		mGramLength = gramLength;
+		mItemCount = itemCount;
+		mGramCount = gramCount;
+		mUnresolvedCount = unresolvedCount;
+		mRootsOffset = HEADER_SIZE;
+		mEndsOffset = mRootsOffset + itemCount * 4;
+		mUnresolvedOffset = mEndsOffset + itemCount * 4;
+		mDirectoryOffset = mUnresolvedOffset + unresolvedCount * 4;
+		mPostingsOffset = mDirectoryOffset + gramCount * (gramLength * 2 + 8);
+		mItems = (T[]) visited.toArray(new IFlexible[itemCount]);
+		mIds.clear();
+		for (int id = 0; id < itemCount; id++) mIds.put(mItems[id], id);
+		mRemoved.clear();
+		mStale.clear();
+		mStaleCount = 0;
+		mOverlay = new NGramFilterIndex<>(gramLength);
+		mOverlayItems.clear();
+		mOverlayRoots.clear();
+		if (FlexibleAdapter.DEBUG)
+			Log.d(TAG, "Mapped index " + file.getName() + " of " + itemCount + " items, "
+					+ gramCount + " grams");
+		return true;
+	}
+
+	/**
+	 * Visits in depth the items, their sub items and the headers, skipping the duplicates.
+	 * For each visited item, records the id of the root and the end of the subtree.
+	 */
+	private static <T extends IFlexible> void visit(List<T> items, List<T> visited,
+													@Nullable IntArray roots, @Nullable IntArray ends) {
+		Set<T> seen = new HashSet<>();
+		for (T item : items) {
+			visitItem(item, -1, seen, visited, roots, ends);
+			if (item instanceof ISectionable) {
+				IHeader header = ((ISectionable) item).getHeader();
+				if (header != null) visitItem((T) header, -1, seen, visited, roots, ends);
+			}
+		}
+	}
+
+	private static <T extends IFlexible> void visitItem(T item, int rootId, Set<T> seen, List<T> visited,
+														@Nullable IntArray roots, @Nullable IntArray ends) {
+		if (!seen.add(item)) return;
+		int id = visited.size();
+		if (rootId < 0) rootId = id;
+		visited.add(item);
+		if (roots != null) {
+			roots.add(rootId);
+			ends.add(0);
+		}
+		if (item instanceof IExpandable) {
+			List<T> subItems = ((IExpandable) item).getSubItems();
+			if (subItems != null) {
+				for (T subItem : subItems) visitItem(subItem, rootId, seen, visited, roots, ends);
+			}
+		}
+		if (ends != null) ends.ids[id] = visited.size();
+	}
+
+	/**
+	 * Adds the n-grams of each word of the normalized text, as {@link NGramFilterIndex} does.
+	 */
+	private static void collectGrams(String text, int gramLength, Set<String> grams) {
+		String[] words = SearchKey.normalize(text).split("\\s+");
+		for (String word : words) {
+			for (int i = 0; i + gramLength <= word.length(); i++) {
+				grams.add(word.substring(i, i + gramLength));
+			}
+		}
+	}
+
+	private boolean isMappedRoot(int id) {
+		return mBuffer.getInt(mRootsOffset + id * 4) == id;
+	}
+
+	private int getEnd(int id) {
+		return mBuffer.getInt(mEndsOffset + id * 4);
+	}
+
+	/**
+	 * Excludes the mapped item and its sub items, their postings are outdated.
+	 */
+	private void markStale(int id) {
+		int end = getEnd(id);
+		mRemoved.set(id, end);
+		for (int i = id; i < end; i++) {
+			if (!mStale.get(i)) {
+				mStale.set(i);
+				mStaleCount++;
+			}
+		}
+	}
+
+	private void addMappedCandidate(int id, Set<T> candidates) {
+		if (!mRemoved.get(id)) candidates.add(mItems[mBuffer.getInt(mRootsOffset + id * 4)]);
+	}
+
+	private void addToOverlay(T item, T root) {
+		mOverlay.add(item);
+		if (item.equals(root)) {
+			mOverlayItems.add(item);
+		} else {
+			mOverlayRoots.put(item, root);
+		}
+	}
+
+	private void removeFromOverlay(T item) {
+		mOverlay.remove(item);
+		mOverlayItems.remove(item);
+		mOverlayRoots.remove(item);
+	}
+
+	/**
+	 * Binary search of the gram in the directory.
+	 *
+	 * @return the offset of the directory entry, -1 if the gram is not indexed
+	 */
+	private int findGram(String gram) {
+		if (gram.length() != mGramLength) return -1;
+		int entrySize = mGramLength * 2 + 8;
+		int low = 0, high = mGramCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int entry = mDirectoryOffset + middle * entrySize;
+			int compare = 0;
+			for (int i = 0; i < mGramLength && compare == 0; i++) {
+				compare = mBuffer.getChar(entry + i * 2) - gram.charAt(i);
+			}
+			if (compare < 0) low = middle + 1;
+			else if (compare > 0) high = middle - 1;
+			else return entry;
+		}
+		return -1;
+	}
+
+	private int getPostingSize(int entry) {
+		return mBuffer.getInt(entry + mGramLength * 2 + 4);
+	}
+
+	private int getPostingOffset(int entry) {
+		return mPostingsOffset + mBuffer.getInt(entry + mGramLength * 2) * 4;
+	}
+
+	private int[] readPosting(int entry) {
+		int offset = getPostingOffset(entry);
+		int[] ids = new int[getPostingSize(entry)];
+		for (int i = 0; i < ids.length; i++) ids[i] = mBuffer.getInt(offset + i * 4);
+		return ids;
+	}
+
+	/**
+	 * Keeps in the sorted array only the ids contained in the mapped posting.
+	 *
+	 * @return the new count of the ids in the array
+	 */
+	private int retainAll(int entry, int[] ids, int count) {
+		int offset = getPostingOffset(entry);
+		int size = getPostingSize(entry);
+		int i = 0, j = 0, retained = 0;
+		while (i < count && j < size) {
+			int id = mBuffer.getInt(offset + j * 4);
+			if (ids[i] < id) i++;
+			else if (ids[i] > id) j++;
+			else {
+				ids[retained++] = ids[i++];
+				j++;
+			}
+		}
+		return retained;
+	}
+
+	@Override
+	public String toString() {
+		return TAG + "[file=" + (mFile != null ? mFile.getName() : null) + ", items=" + mItemCount + "]";
+	}
+
+	/**
+	 * Growable array of ints used while writing.
+	 */
+	private static class IntArray {
+
+		int[] ids = new int[4];
+		int size = 0;
+
+		void add(int id) {
+			if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+			ids[size++] = id;
+		}
+
+		void writeTo(DataOutputStream out) throws IOException {
+			for (int i = 0; i < size; i++) out.writeInt(ids[i]);
+		}
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IExpandable;
+import eu.davidea.flexibleadapter.items.IFilterable;
+import eu.davidea.flexibleadapter.items.IFlexible;
+import eu.davidea.flexibleadapter.items.IIndexable;
+
+/**
+ * Inverted index of the n-grams of the {@link IIndexable#getIndexText()} of the items.
+ * <p>Each indexed item has an internal id, for each n-gram a posting list keeps the sorted ids
+ * of the items containing it. The search text is split in words and the candidates are the
+ * intersection of the posting lists of all the n-grams of the words.</p>
+ * Removed items are marked with a tombstone and their ids are skipped, posting lists are
+ * compacted when the removed ids exceed the live ones.
+ * <p><b>Note:</b> Words shorter than the n-gram length cannot be resolved by the index: if the
+ * search text has only short words, all the items are filtered as usual.</p>
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see FilterIndex
+ * @since 16/01/2017 Created
+ */
+public class NGramFilterIndex<T extends IFlexible> implements FilterIndex<T> {
+
+	private static final String TAG = NGramFilterIndex.class.getSimpleName();
+	public static final int DEFAULT_GRAM_LENGTH = 3;
+	private static final int MIN_COMPACT_COUNT = 1024;
+
+	private final int mGramLength;
+	private final Map<String, PostingList> mPostings = new HashMap<>();
+	/* Ids of the indexed items and, by id, the items and their roots */
+	private final Map<T, Integer> mIds = new HashMap<>();
+	private final List<T> mItems = new ArrayList<>();
+	private final List<T> mRoots = new ArrayList<>();
+	/* Sub items indexed for each expandable, they could change before removal */
+	private final Map<T, List<T>> mChildren = new HashMap<>();
+	/* Roots having filterable items without index text: they are always candidates */
+	private final Set<T> mUnresolvedRoots = new HashSet<>();
+	private final BitSet mTombstones = new BitSet();
+	private int mTombstoneCount = 0;
+
+	public NGramFilterIndex() {
+		this(DEFAULT_GRAM_LENGTH);
+	}
+
+	/**
+	 * @param gramLength the length of the n-grams, shorter grams give more candidates for
+	 *                   short words but longer posting lists
+	 */
+	public NGramFilterIndex(@IntRange(from = 1) int gramLength) {
+		if (gramLength < 1) throw new IllegalArgumentException("Gram length must be positive");
+		mGramLength = gramLength;
+	}
+
+	/**
+	 * @return the length of the n-grams
+	 */
+	public int getGramLength() {
+		return mGramLength;
+	}
+
+	/**
+	 * @return the number of the items currently indexed, sub items included
+	 */
+	public synchronized int size() {
+		return mIds.size();
+	}
+
+	@Override
+	public synchronized void add(@NonNull T item) {
+		if (mIds.containsKey(item)) {
+			update(item);
+		} else {
+			addInternal(item, item);
+		}
+	}
+
+	@Override
+	public synchronized void remove(@NonNull T item) {
+		if (!mIds.containsKey(item)) return;
+		removeInternal(item);
+		mUnresolvedRoots.remove(item);
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized void update(@NonNull T item) {
+		Integer id = mIds.get(item);
+		T root = id != null ? mRoots.get(id) : item;
+		removeInternal(item);
+		addInternal(item, root);
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized void clear() {
+		mPostings.clear();
+		mIds.clear();
+		mItems.clear();
+		mRoots.clear();
+		mChildren.clear();
+		mUnresolvedRoots.clear();
+		mTombstones.clear();
+		mTombstoneCount = 0;
+	}
+
+	@Override
+	public synchronized boolean contains(@NonNull T item) {
+		return mIds.containsKey(item);
+	}
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+	@Nullable
+	@Override
+	public synchronized Set<T> getCandidates(@NonNull String constraint) {
+		Set<String> grams = new HashSet<>();
+		collectGrams(constraint, grams);
+		if (grams.isEmpty()) return null;
+		// Intersect starting from the shortest posting list
+		List<PostingList> postings = new ArrayList<>(grams.size());
+		for (String gram : grams) {
+			PostingList posting = mPostings.get(gram);
+			if (posting == null) return new HashSet<>(mUnresolvedRoots);
+			postings.add(posting);
+		}
+		Collections.sort(postings, new Comparator<PostingList>() {
+			@Override
+			public int compare(PostingList lhs, PostingList rhs) {
+				return lhs.size - rhs.size;
+			}
+		});
+		int[] ids = Arrays.copyOf(postings.get(0).ids, postings.get(0).size);
+		int count = ids.length;
+		for (int i = 1; i < postings.size() && count > 0; i++) {
+			count = postings.get(i).retainAll(ids, count);
+		}
+		// Resolve the roots of the live ids
+		Set<T> candidates = new HashSet<>(mUnresolvedRoots);
+		for (int i = 0; i < count; i++) {
+			if (!mTombstones.get(ids[i])) candidates.add(mRoots.get(ids[i]));
+		}
+		if (FlexibleAdapter.DEBUG)
+			Log.v(TAG, "Candidates for \"" + constraint + "\" " + candidates.size() + "/" + mIds.size());
+		return candidates;
+	}
+
+	/**
+	 * Adds the n-grams of each word of the text. Words shorter than the gram length are skipped.
+	 */
+	private void collectGrams(String text, Set<String> grams) {
+		String[] words = SearchKey.normalize(text).split("\\s+");
+		for (String word : words) {
+			for (int i = 0; i + mGramLength <= word.length(); i++) {
+				grams.add(word.substring(i, i + mGramLength));
+			}
+		}
+	}
+
+	private void addInternal(T item, T root) {
+		int id = mItems.size();
+		mIds.put(item, id);
+		mItems.add(item);
+		mRoots.add(root);
+		if (item instanceof IIndexable) {
+			String text = ((IIndexable) item).getIndexText();
+			if (text != null) {
+				Set<String> grams = new HashSet<>();
+				collectGrams(text, grams);
+				for (String gram : grams) {
+					PostingList posting = mPostings.get(gram);
+					if (posting == null) {
+						posting = new PostingList();
+						mPostings.put(gram, posting);
+					}
+					posting.add(id);
+				}
+			}
+		} else if (item instanceof IFilterable) {
+			// The index cannot say anything about this item
+			mUnresolvedRoots.add(root);
+		}
+		if (item instanceof IExpandable) {
+			List<T> subItems = ((IExpandable) item).getSubItems();
+			if (subItems != null && !subItems.isEmpty()) {
+				List<T> children = new ArrayList<>(subItems);
+				mChildren.put(item, children);
+				for (T child : children) {
+					if (!mIds.containsKey(child)) addInternal(child, root);
+				}
+			}
+		}
+	}
+
+	private void removeInternal(T item) {
+		Integer id = mIds.remove(item);
+		if (id == null) return;
+		mItems.set(id, null);
+		mRoots.set(id, null);
+		mTombstones.set(id);
+		mTombstoneCount++;
+		List<T> children = mChildren.remove(item);
+		if (children != null) {
+			for (T child : children) removeInternal(child);
+		}
+	}
+
+	/**
+	 * Compacts when the dead ids, left by removals and updates, outnumber the live ids.
+	 */
+	private void compactIfNeeded() {
+		if (mTombstoneCount > MIN_COMPACT_COUNT && mTombstoneCount > mIds.size()) compact();
+	}
+
+	/**
+	 * Assigns new consecutive ids to the live items and removes the dead ids from the postings.
+	 */
+	private void compact() {
+		if (FlexibleAdapter.DEBUG)
+			Log.d(TAG, "Compacting index, removed=" + mTombstoneCount + " live=" + mIds.size());
+		int[] newIds = new int[mItems.size()];
+		List<T> items = new ArrayList<>(mIds.size());
+		List<T> roots = new ArrayList<>(mIds.size());
+		for (int id = 0; id < newIds.length; id++) {
+			if (mTombstones.get(id)) {
+				newIds[id] = -1;
+			} else {
+				T item = mItems.get(id);
+				newIds[id] = items.size();
+				mIds.put(item, items.size());
+				items.add(item);
+				roots.add(mRoots.get(id));
+			}
+		}
+		Iterator<PostingList> iterator = mPostings.values().iterator();
+		while (iterator.hasNext()) {
+			PostingList posting = iterator.next();
+			posting.remap(newIds);
+			if (posting.size == 0) iterator.remove();
+		}
+		mItems.clear();
+		mItems.addAll(items);
+		mRoots.clear();
+		mRoots.addAll(roots);
+		mTombstones.clear();
+		mTombstoneCount = 0;
+	}
+
+	/**
+	 * Growable array of ids, always sorted since new ids are always greater.
+	 */
+	private static class PostingList {
+
+		int[] ids = new int[4];
+		int size = 0;
+
+		void add(int id) {
+			if (size > 0 && ids[size - 1] == id) return;
+			if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+			ids[size++] = id;
+		}
+
+		/**
+		 * Keeps in the sorted array only the ids contained in this list.
+		 *
+		 * @return the new count of the ids in the array
+		 */
+		int retainAll(int[] other, int count) {
+			int i = 0, j = 0, retained = 0;
+			while (i < count && j < size) {
+				if (other[i] < ids[j]) i++;
+				else if (other[i] > ids[j]) j++;
+				else {
+					other[retained++] = other[i++];
+					j++;
+				}
+			}
+			return retained;
+		}
+
+		void remap(int[] newIds) {
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				int id = newIds[ids[i]];
+				if (id >= 0) ids[count++] = id;
+			}
+			size = count;
+			if (size < ids.length / 4) ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+		}
+	}
+
+}
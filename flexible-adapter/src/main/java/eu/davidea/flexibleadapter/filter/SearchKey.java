@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.filter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Normalized search key of a text: lowercase and without accents, computed once and kept with
+ * the item, so neither the filter nor the highlight need to transform the text again.
+ * <p>The key has the same length of the original text, the positions of a match in the key
+ * are the positions of the text to highlight. The filter records the match ranges with
+ * {@link #matches(String)}: the bind then applies them with
+ * {@link eu.davidea.flexibleadapter.utils.Utils#highlightText(android.widget.TextView,
+ * SearchKey, String, int)} without searching again. Other constraints are computed on the
+ * fly and never replace the recorded ranges.</p>
+ * The normalization doesn't depend on the default Locale. Create a new key when the text
+ * changes.
+ *
+ * @author Davide Steduto
+ * @since 19/01/2017 Created
+ */
+public class SearchKey {
+
+	private static final int[] NO_RANGES = new int[0];
+
+	private final String mText;
+	private final String mKey;
+	/* Ranges recorded by the filter, replaced as a whole to be read from any thread */
+	private volatile Match mMatch;
+
+	public SearchKey(@Nullable String text) {
+		mText = text != null ? text : "";
+		mKey = normalize(mText);
+	}
+
+	/**
+	 * @return the original text
+	 */
+	@NonNull
+	public String getText() {
+		return mText;
+	}
+
+	/**
+	 * @return the normalized text, same length of the original text
+	 */
+	@NonNull
+	public String getKey() {
+		return mKey;
+	}
+
+	/**
+	 * Lowercases the text and removes the accents, char by char, so the length is preserved.
+	 *
+	 * @param text the text to normalize
+	 * @return the normalized text
+	 */
+	@NonNull
+	public static String normalize(@Nullable String text) {
+		if (text == null) return "";
+		char[] chars = null;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			char folded = c < 128 ? Character.toLowerCase(c) : fold(c);
+			if (folded != c) {
+				if (chars == null) chars = text.toCharArray();
+				chars[i] = folded;
+			}
+		}
+		return chars != null ? new String(chars) : text;
+	}
+
+	/**
+	 * Folds a non ASCII char to its lowercase base letter, if it has one.
+	 */
+	private static char fold(char c) {
+		String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+		return Character.toLowerCase(decomposed.charAt(0));
+	}
+
+	/**
+	 * Checks if the text contains the constraint, ignoring case and accents, and records
+	 * the match ranges for the highlight.
+	 * <p>To be called by the filter.</p>
+	 *
+	 * @param constraint the search text
+	 * @return true if the text contains the constraint, false otherwise
+	 */
+	public boolean matches(@Nullable String constraint) {
+		if (constraint == null || constraint.isEmpty()) return false;
+		Match match = mMatch;
+		if (match == null || !constraint.equals(match.constraint)) {
+			match = new Match(constraint, computeRanges(constraint));
+			mMatch = match;
+		}
+		return match.ranges.length > 0;
+	}
+
+	/**
+	 * Provides the ranges of all the occurrences of the constraint, ignoring case and accents.
+	 * The ranges recorded by the filter are reused, any other constraint is computed without
+	 * replacing them.
+	 *
+	 * @param constraint the search text
+	 * @return pairs of start (inclusive) and end (exclusive) positions in the original text,
+	 * empty if the text doesn't contain the constraint
+	 */
+	@NonNull
+	public int[] getMatchRanges(@Nullable String constraint) {
+		if (constraint == null || constraint.isEmpty()) return NO_RANGES;
+		Match match = mMatch;
+		if (match != null && constraint.equals(match.constraint)) return match.ranges;
+		return computeRanges(constraint);
+	}
+
+	private int[] computeRanges(String constraint) {
+		String normalized = normalize(constraint);
+		int[] ranges = NO_RANGES;
+		int count = 0;
+		int index = mKey.indexOf(normalized);
+		while (index >= 0) {
+			if (count == ranges.length) ranges = Arrays.copyOf(ranges, Math.max(2, count * 2));
+			ranges[count++] = index;
+			ranges[count++] = index + normalized.length();
+			index = mKey.indexOf(normalized, index + normalized.length());
+		}
+		return count < ranges.length ? Arrays.copyOf(ranges, count) : ranges;
+	}
+
+	@Override
+	public String toString() {
+		return mText;
+	}
+
+	private static final class Match {
+		final String constraint;
+		final int[] ranges;
+
+		Match(String constraint, int[] ranges) {
+			this.constraint = constraint;
+			this.ranges = ranges;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import java.util.List;
+
+import eu.davidea.viewholders.ExpandableViewHolder;
+
+/**
+ * Generic implementation of {@link ILazyExpandable} interface, the loaded sub items are held
+ * by {@link AbstractExpandableItem}.
+ * <p>This abstract class extends {@link AbstractExpandableItem}.</p>
+ * Implement {@link #loadSubItems()} and {@link #getLoadingSubItem()}.
+ *
+ * @param <VH> {@link ExpandableViewHolder}
+ * @param <S>  The sub item of type {@link IFlexible}
+ * @author Davide Steduto
+ * @since 14/01/2017 Created
+ */
+public abstract class AbstractLazyExpandableItem<VH extends ExpandableViewHolder, S extends IFlexible>
+		extends AbstractExpandableItem<VH, S>
+		implements ILazyExpandable<VH, S> {
+
+	@Override
+	public boolean isSubItemsLoaded() {
+		return mSubItems != null;
+	}
+
+	@Override
+	public void setLoadedSubItems(List<S> subItems) {
+		mSubItems = subItems;
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+/**
+ * Items implementing this interface provide the text to be indexed by a
+ * {@link eu.davidea.flexibleadapter.filter.FilterIndex}, so the filter can skip, without calling
+ * {@link IFilterable#filter(String)}, the items that cannot match the search text.
+ * <p><b>Note:</b> The text must contain all the words that {@link IFilterable#filter(String)}
+ * is able to match, the index is only a pre-selection.</p>
+ *
+ * @author Davide Steduto
+ * @see IFilterable
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setFilterIndex(eu.davidea.flexibleadapter.filter.FilterIndex)
+ * @since 16/01/2017 Created
+ */
+public interface IIndexable extends IFilterable {
+
+	/**
+	 * Provides the text used to index this item. The text is lowercased by the index.
+	 * <p>If the text changes, the item must be updated in the Adapter with
+	 * {@code updateItem()} to update the index.</p>
+	 *
+	 * @return the text to index, all the searchable fields of this item
+	 */
+	String getIndexText();
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import eu.davidea.viewholders.ExpandableViewHolder;
+
+/**
+ * Interface to load asynchronously the sub items of an {@link IExpandable} item, only when
+ * the expansion is requested for the first time.
+ * <p>Implements this interface or use {@link AbstractLazyExpandableItem}.</p>
+ * While loading, {@link eu.davidea.flexibleadapter.FlexibleAdapter} displays the loading sub
+ * item in place of the sub items; when the sub items are loaded they replace the loading item.
+ * Collapsed items can be unloaded by the Adapter to keep the memory bounded.
+ *
+ * @author Davide Steduto
+ * @see IExpandable
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setLazyLoadingExecutor(java.util.concurrent.Executor)
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setLazyCacheSize(int)
+ * @since 14/01/2017 Created
+ */
+public interface ILazyExpandable<VH extends ExpandableViewHolder, S extends IFlexible>
+		extends IExpandable<VH, S> {
+
+	/**
+	 * @return true if the sub items are loaded and {@link #getSubItems()} can be used,
+	 * false if they must be loaded first
+	 */
+	boolean isSubItemsLoaded();
+
+	/**
+	 * The item to display while the sub items are loading, usually a progress item.
+	 * <p><b>Note:</b> Must return always the same instance.</p>
+	 *
+	 * @return the loading item or null to display nothing while loading
+	 */
+	@Nullable
+	S getLoadingSubItem();
+
+	/**
+	 * Loads the sub items. <b>This method is called in a background thread</b>, therefore it
+	 * must not modify this item nor access the Adapter.
+	 *
+	 * @return the loaded sub items, null if the loading failed
+	 */
+	@Nullable
+	List<S> loadSubItems();
+
+	/**
+	 * Called in the main thread to set the sub items once loaded, or to release them when
+	 * this item is collapsed and it is unloaded by the Adapter.
+	 *
+	 * @param subItems the loaded sub items or null to unload them
+	 */
+	void setLoadedSubItems(@Nullable List<S> subItems);
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import eu.davidea.viewholders.FlexibleViewHolder;
+
+/**
+ * Interface for {@link IHeader} items whose section items are loaded asynchronously, only when
+ * the section approaches the visible area.
+ * <p>Add to the list only the headers: {@link eu.davidea.flexibleadapter.FlexibleAdapter}
+ * reserves, after each header, a position for each section item holding a new placeholder
+ * item, so scrolling, sticky headers and FastScroller work with the full count. The list passed
+ * to the Adapter is not modified. When the header or a placeholder is bound within the
+ * prefetch distance, the section items are loaded in background and they replace the
+ * placeholders; the Adapter keeps them, so they are restored when the filter is cleared.</p>
+ * <b>Note:</b> Headers already followed by their section items are considered loaded. The
+ * filter skips the placeholders: it considers only the sections already loaded.
+ *
+ * @author Davide Steduto
+ * @see IHeader
+ * @see ISectionable
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setSectionPrefetchDistance(int)
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setLazyLoadingExecutor(java.util.concurrent.Executor)
+ * @since 25/01/2017 Created
+ */
+public interface ILazySection<VH extends FlexibleViewHolder, S extends ISectionable>
+		extends IHeader<VH> {
+
+	/**
+	 * @return the number of the section items, known before they are loaded
+	 */
+	int getSectionItemsCount();
+
+	/**
+	 * Creates an item that holds the position of a section item while it is loading, the
+	 * Adapter links this header to it.
+	 * <p><b>Note:</b> Must return a new instance at each call: one for each reserved position.</p>
+	 *
+	 * @return a new placeholder item
+	 */
+	S newPlaceholderSectionItem();
+
+	/**
+	 * Loads the section items. <b>This method is called in a background thread</b>, therefore
+	 * it must not modify this item nor access the Adapter.
+	 * <p>If the loaded count differs from {@link #getSectionItemsCount()}, the positions in
+	 * excess are removed or the missing positions are inserted.</p>
+	 *
+	 * @return the loaded section items, null if the loading failed: the section will be loaded
+	 * again when bound
+	 */
+	@Nullable
+	List<S> loadSectionItems();
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+/**
+ * When the Adapter displays only the most relevant results of the search, in order to be
+ * ranked, an item must implement this interface.
+ * <p>A simple implementation of {@link #filter(String)} is
+ * {@code return getRelevance(constraint) > 0;}</p>
+ *
+ * @author Davide Steduto
+ * @see IFilterable
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setRankedFilter(int)
+ * @since 17/01/2017 Created
+ */
+public interface IRankable extends IFilterable {
+
+	/**
+	 * Evaluates how much this item is relevant for the search text, items with higher
+	 * relevance are displayed first.
+	 * <p>This method is called only if the item has been collected by the filter.</p>
+	 *
+	 * @param constraint the search text typed by the user
+	 * @return the relevance of this item, any value, higher is better
+	 */
+	float getRelevance(String constraint);
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.items;
+
+import eu.davidea.viewholders.ExpandableViewHolder;
+
+/**
+ * Interface for {@link IExpandable} items having a huge number of sub items that should not be
+ * materialized all together.
+ * <p>When expanded, {@link eu.davidea.flexibleadapter.FlexibleAdapter} counts a position for
+ * each sub item, so the full count is used for scrolling and positioning, but the sub items are
+ * not stored in the list of the Adapter: they are retrieved with {@link #getVirtualSubItem(int)}
+ * by pages when their positions are requested and only the most recently used pages are
+ * retained.</p>
+ * <b>Note:</b> Virtual sub items cannot be expandable and {@link #getSubItems()} should return
+ * {@code null}: sub items are not considered by the filter.
+ *
+ * @author Davide Steduto
+ * @see IExpandable
+ * @see eu.davidea.flexibleadapter.FlexibleAdapter#setVirtualSubItemsWindow(int, int)
+ * @since 15/01/2017 Created
+ */
+public interface IVirtualExpandable<VH extends ExpandableViewHolder, S extends IFlexible>
+		extends IExpandable<VH, S> {
+
+	/**
+	 * @return the total number of the sub items
+	 */
+	int getVirtualSubItemsCount();
+
+	/**
+	 * Provides the sub item at the specified index, it can be created on demand.
+	 * <p><b>Note:</b> Returned items must implement {@code equals()} and {@code hashCode()},
+	 * since the same sub item can be requested multiple times.</p>
+	 *
+	 * @param index the index of the sub item, from 0 to {@link #getVirtualSubItemsCount()} - 1
+	 * @return the sub item for the index
+	 */
+	S getVirtualSubItem(int index);
+
+	/**
+	 * The item displayed in place of a sub item that cannot be retrieved.
+	 *
+	 * @return the placeholder item
+	 */
+	S getPlaceholderSubItem();
+
+}
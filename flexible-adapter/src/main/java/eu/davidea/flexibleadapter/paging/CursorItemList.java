@@ -0,0 +1,279 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.paging;
+
+import android.database.Cursor;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Read only list of items mapped, on demand, from the rows of a {@link Cursor} by a
+ * {@link RowMapper}. Only the items of a sliding <i>window</i> around the bound positions are
+ * kept in memory: the least recently used item is evicted when the window is full and its
+ * instance is given back to the mapper to be reused for the next row.
+ * <p>Set it with {@link FlexibleAdapter#setLazyItems(LazyItemList)}.</p>
+ * Filtering is done in SQL: with a {@link CursorProvider}, {@link #filter(String)} queries the
+ * new Cursor in background and swaps it in the main thread.
+ * <p><b>Note:</b> Headers must be linked by the mapper to the mapped items (the same header
+ * instance for the whole section), {@code showAllHeaders} is not supported. Selection works
+ * by position, therefore the Adapter clears it when a new Cursor is swapped.</p>
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see LazyItemList
+ * @since 23/01/2017 Created
+ */
+public class CursorItemList<T extends IFlexible> extends LazyItemList<T> {
+
+	private static final String TAG = CursorItemList.class.getSimpleName();
+	private static final int DEFAULT_WINDOW_SIZE = 100;
+
+	/**
+	 * Maps the rows of the Cursor to items.
+	 */
+	public interface RowMapper<T extends IFlexible> {
+
+		/**
+		 * Maps the current row of the Cursor. <b>This method is called in the main thread.</b>
+		 *
+		 * @param cursor   the Cursor already moved to the row
+		 * @param recycled an item evicted from the window that can be reused and filled with
+		 *                 the values of the row, null if no item is available
+		 * @return the item of the row
+		 */
+		@NonNull
+		T mapRow(@NonNull Cursor cursor, @Nullable T recycled);
+	}
+
+	/**
+	 * Queries the Cursors when filtering.
+	 */
+	public interface CursorProvider {
+
+		/**
+		 * Queries the rows matching the constraint. <b>This method is called in a background
+		 * thread.</b>
+		 *
+		 * @param constraint the constraint, empty to query all the rows
+		 * @return the new Cursor, null if the query failed
+		 */
+		@Nullable
+		Cursor query(@NonNull String constraint);
+	}
+
+	private final RowMapper<T> mMapper;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final LinkedHashMap<Integer, T> mWindow;
+	private Cursor mCursor;
+	private CursorProvider mProvider;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private int mWindowSize = DEFAULT_WINDOW_SIZE;
+	private int mQueryGeneration = 0;
+	private T mRecycled;
+
+	/**
+	 * @param cursor the Cursor, null if not available yet
+	 * @param mapper the mapper of the rows
+	 */
+	public CursorItemList(@Nullable Cursor cursor, @NonNull RowMapper<T> mapper) {
+		mCursor = cursor;
+		mMapper = mapper;
+		mWindow = new LinkedHashMap<Integer, T>(DEFAULT_WINDOW_SIZE, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+				if (size() > mWindowSize) {
+					mRecycled = eldest.getValue();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Sets the maximum number of items kept in memory. Should be greater than the number of
+	 * the items visible at the same time.
+	 * <p>Default value is 100.</p>
+	 *
+	 * @param windowSize the maximum number of mapped items
+	 * @return this list, so the call can be chained
+	 */
+	public CursorItemList<T> setWindowSize(@IntRange(from = 1) int windowSize) {
+		mWindowSize = Math.max(1, windowSize);
+		Iterator<T> iterator = mWindow.values().iterator();
+		while (mWindow.size() > mWindowSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+		return this;
+	}
+
+	/**
+	 * Enables the filtering in SQL with {@link #filter(String)}.
+	 *
+	 * @param provider the provider of the filtered Cursors
+	 * @return this list, so the call can be chained
+	 */
+	public CursorItemList<T> setCursorProvider(@Nullable CursorProvider provider) {
+		mProvider = provider;
+		return this;
+	}
+
+	/**
+	 * Sets the Executor to query the Cursors.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the Executor
+	 * @return this list, so the call can be chained
+	 */
+	public CursorItemList<T> setExecutor(@NonNull Executor executor) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * @return the current Cursor, null if not set
+	 */
+	@Nullable
+	public Cursor getCursor() {
+		return mCursor;
+	}
+
+	/**
+	 * Replaces the Cursor: the mapped items are discarded and the Adapter is notified of the
+	 * new data set. The old Cursor is <u>not</u> closed.
+	 *
+	 * @param cursor the new Cursor
+	 * @return the old Cursor, null if it was not set or if it is the same
+	 */
+	@Nullable
+	public Cursor swapCursor(@Nullable Cursor cursor) {
+		if (cursor == mCursor) return null;
+		Cursor oldCursor = mCursor;
+		mCursor = cursor;
+		mWindow.clear();
+		mRecycled = null;
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Swapped cursor, size=" + size());
+		notifyDataSetChanged();
+		return oldCursor;
+	}
+
+	/**
+	 * Queries in background, through the {@link CursorProvider}, the Cursor of the rows
+	 * matching the constraint, then the Cursor is swapped in the main thread and the old one is
+	 * closed. A query superseded by a newer one is discarded.
+	 *
+	 * @param constraint the constraint, empty or null to query all the rows
+	 */
+	@Override
+	public void filter(@Nullable String constraint) {
+		if (mProvider == null) {
+			Log.w(TAG, "Cannot filter: CursorProvider not set");
+			return;
+		}
+		final String query = constraint != null ? constraint : "";
+		final CursorProvider provider = mProvider;
+		final int generation = ++mQueryGeneration;
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Cursor cursor = provider.query(query);
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation != mQueryGeneration) {
+							if (cursor != null) cursor.close();
+						} else if (cursor != null) {
+							Cursor oldCursor = swapCursor(cursor);
+							if (oldCursor != null) oldCursor.close();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Closes the Cursor and discards the queries in progress. The list becomes empty and the
+	 * Adapter still attached is notified of the new data set.
+	 */
+	public void close() {
+		mQueryGeneration++;
+		mWindow.clear();
+		mRecycled = null;
+		if (mCursor == null) return;
+		mCursor.close();
+		mCursor = null;
+		notifyDataSetChanged();
+	}
+
+	/**
+	 * @param position the position
+	 * @return true if the item at the position is in the window, false otherwise
+	 */
+	public boolean isMapped(int position) {
+		return mWindow.containsKey(position);
+	}
+
+	@Override
+	public T get(int position) {
+		T item = mWindow.get(position);
+		if (item == null) {
+			if (mCursor == null || !mCursor.moveToPosition(position))
+				throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + size());
+			T recycled = mRecycled;
+			mRecycled = null;
+			item = mMapper.mapRow(mCursor, recycled);
+			mWindow.put(position, item);
+		}
+		return item;
+	}
+
+	@Override
+	public int size() {
+		return mCursor == null || mCursor.isClosed() ? 0 : mCursor.getCount();
+	}
+
+	/**
+	 * Searches only among the items of the window.
+	 */
+	@Override
+	public int indexOf(Object object) {
+		for (Map.Entry<Integer, T> entry : mWindow.entrySet()) {
+			if (entry.getValue().equals(object)) return entry.getKey();
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object object) {
+		return indexOf(object);
+	}
+
+}
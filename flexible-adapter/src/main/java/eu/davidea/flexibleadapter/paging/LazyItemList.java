@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.paging;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.AbstractList;
+
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Base class of the read only lists whose items are materialized on demand, so the Adapter
+ * doesn't need all the items in memory.
+ * <p>Set it with {@link eu.davidea.flexibleadapter.FlexibleAdapter#setLazyItems(LazyItemList)}:
+ * the Adapter calls {@link #loadAround(int)} while binding and it is notified through the
+ * {@link Callback} when the content changes.</p>
+ * <b>Note:</b> The Adapter cannot modify the list: adding, removing and moving items are not
+ * supported. The Adapter filters the list by calling {@link #filter(String)}.
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see PagedItemList
+ * @see CursorItemList
+ * @see MappedItemList
+ * @since 23/01/2017 Created
+ */
+public abstract class LazyItemList<T extends IFlexible> extends AbstractList<T> {
+
+	/**
+	 * Notified in the main thread when the content of the list changes.
+	 */
+	public interface Callback {
+
+		void onItemRangeChanged(int positionStart, int itemCount);
+
+		void onItemRangeInserted(int positionStart, int itemCount);
+
+		void onDataSetChanged();
+	}
+
+	private Callback mCallback;
+
+	/**
+	 * Used by the Adapter to be notified of the changes.
+	 *
+	 * @param callback the callback, null to detach the list
+	 */
+	public void setCallback(@Nullable Callback callback) {
+		mCallback = callback;
+	}
+
+	/**
+	 * Called by the Adapter, in the main thread, while binding: it's the moment to prepare the
+	 * items around the bound position.
+	 * <p>Default implementation does nothing.</p>
+	 *
+	 * @param position the bound position
+	 */
+	public void loadAround(int position) {
+	}
+
+	/**
+	 * Called by the Adapter, in the main thread, instead of filtering the items itself: the
+	 * list displays the items matching the constraint and notifies the new data set.
+	 * <p>Default implementation does nothing, the list keeps displaying all the items.</p>
+	 *
+	 * @param constraint the constraint, empty or null to display all the items
+	 */
+	public void filter(@Nullable String constraint) {
+		Log.w(getClass().getSimpleName(), "Cannot filter: filter() not implemented");
+	}
+
+	protected void notifyItemRangeChanged(int positionStart, int itemCount) {
+		if (mCallback != null && itemCount > 0) mCallback.onItemRangeChanged(positionStart, itemCount);
+	}
+
+	protected void notifyItemRangeInserted(int positionStart, int itemCount) {
+		if (mCallback != null && itemCount > 0) mCallback.onItemRangeInserted(positionStart, itemCount);
+	}
+
+	protected void notifyDataSetChanged() {
+		if (mCallback != null) mCallback.onDataSetChanged();
+	}
+
+	@Override
+	public boolean contains(Object object) {
+		return indexOf(object) >= 0;
+	}
+
+}
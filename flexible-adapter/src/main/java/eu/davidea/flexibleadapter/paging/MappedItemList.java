@@ -0,0 +1,481 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.paging;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Read only list of fixed layout records, memory mapped from a file, displayed through a
+ * small pool of <i>flyweight</i> items: no object is created per row, a flyweight is bound to
+ * the record of the requested position and it is reused for the positions sharing its slot.
+ * <p>Write the file once with {@link #write(File, long, int, int, RecordWriter)} and open it
+ * with {@link #open(File, long, RecordBinder)}, then set the list with
+ * {@link FlexibleAdapter#setLazyItems(LazyItemList)}. The size is read from the file header
+ * and the records are read by the {@link RecordBinder} directly from the mapped buffer.</p>
+ * Filtering with {@link #filter(String)} scans the records in background through
+ * {@link RecordBinder#filterRecord(ByteBuffer, int, byte[])}: the result is only an array of
+ * the matching record positions.
+ * <p><b>Note:</b> The items returned by {@link #get(int)} are valid until the position is
+ * bound again: don't keep references to them, use the positions. The number of flyweights
+ * must be greater than the number of the items visible and cached by the RecyclerView.
+ * Selection works by position, therefore the Adapter clears it when filtering.</p>
+ *
+ * @param <T> the type of the flyweight items
+ * @author Davide Steduto
+ * @see LazyItemList
+ * @since 24/01/2017 Created
+ */
+public class MappedItemList<T extends IFlexible> extends LazyItemList<T> {
+
+	private static final String TAG = MappedItemList.class.getSimpleName();
+	private static final int MAGIC = 0x46415253;//"FARS"
+	public static final int FORMAT_VERSION = 1;
+	/* magic, format, data version, record size, record count */
+	private static final int HEADER_SIZE = 24;
+	private static final int DEFAULT_FLYWEIGHTS = 128;
+	private static final int NO_POSITION = -1;
+
+	/**
+	 * Writes the records of the file.
+	 */
+	public interface RecordWriter {
+
+		/**
+		 * Writes the record with the absolute methods of the buffer, from offset 0 to the
+		 * record size. The buffer is cleared before each record.
+		 *
+		 * @param position the position of the record
+		 * @param record   the buffer of the record
+		 */
+		void writeRecord(int position, @NonNull ByteBuffer record);
+	}
+
+	/**
+	 * Binds the records to the flyweight items.
+	 * <p><b>Only the absolute methods of the buffer must be used</b>, the buffer is shared with
+	 * the background filter.</p>
+	 */
+	public interface RecordBinder<T extends IFlexible> {
+
+		/**
+		 * @return a new flyweight item, called only to fill the pool
+		 */
+		@NonNull
+		T newFlyweight();
+
+		/**
+		 * Binds the record to the flyweight. <b>This method is called in the main thread.</b>
+		 *
+		 * @param flyweight the flyweight to bind
+		 * @param buffer    the mapped buffer
+		 * @param offset    the offset of the record in the buffer
+		 * @param position  the position of the record in the file
+		 */
+		void bindRecord(@NonNull T flyweight, @NonNull ByteBuffer buffer, int offset, int position);
+
+		/**
+		 * Checks if the record matches the constraint, without creating objects per record.
+		 * <b>This method is called in a background thread.</b>
+		 *
+		 * @param buffer     the mapped buffer
+		 * @param offset     the offset of the record in the buffer
+		 * @param constraint the lowercase constraint in ISO-8859-1 bytes, encoded once per scan
+		 *                   with {@link #toLowerCaseText(String)}
+		 * @return true if the record matches the constraint, false otherwise
+		 * @see #textContains(ByteBuffer, int, int, byte[])
+		 */
+		boolean filterRecord(@NonNull ByteBuffer buffer, int offset, @NonNull byte[] constraint);
+	}
+
+	private final RecordBinder<T> mBinder;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final MappedByteBuffer[] mSegments;
+	private final int mRecordSize, mRecordCount, mSegmentRecords;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private Object[] mFlyweights;
+	private int[] mFlyweightPositions;
+	private int[] mFiltered;
+	private int mFilteredCount;
+	private volatile int mFilterGeneration = 0;
+
+	private MappedItemList(MappedByteBuffer[] segments, int recordSize, int recordCount,
+						   int segmentRecords, RecordBinder<T> binder) {
+		mSegments = segments;
+		mRecordSize = recordSize;
+		mRecordCount = recordCount;
+		mSegmentRecords = segmentRecords;
+		mBinder = binder;
+		setFlyweightCount(DEFAULT_FLYWEIGHTS);
+	}
+
+	/**
+	 * Writes the records to the file, replacing it.
+	 * <p>Call it from a background thread.</p>
+	 *
+	 * @param file        the records file
+	 * @param dataVersion the version of the records, checked when the file is opened
+	 * @param recordSize  the size in bytes of each record
+	 * @param recordCount the number of the records
+	 * @param writer      the writer of the records
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(@NonNull File file, long dataVersion,
+							 @IntRange(from = 1) int recordSize,
+							 @IntRange(from = 0) int recordCount,
+							 @NonNull RecordWriter writer)
+			throws IOException {
+		if (recordSize < 1) throw new IllegalArgumentException("Record size must be positive");
+		long start = System.currentTimeMillis();
+		ByteBuffer record = ByteBuffer.allocate(recordSize);
+		byte[] empty = new byte[recordSize];
+		// Write to a temporary file and replace the old one only when complete
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(dataVersion);
+			out.writeInt(recordSize);
+			out.writeInt(recordCount);
+			for (int position = 0; position < recordCount; position++) {
+				record.clear();
+				record.put(empty).clear();
+				writer.writeRecord(position, record);
+				out.write(record.array(), 0, recordSize);
+			}
+		} finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Cannot replace records file " + file);
+		}
+		if (FlexibleAdapter.DEBUG)
+			Log.d(TAG, "Written " + recordCount + " records in "
+					+ (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * Maps the records file. Only the header is read.
+	 *
+	 * @param file        the records file
+	 * @param dataVersion the expected version of the records
+	 * @param binder      the binder of the records
+	 * @param <T>         the type of the flyweight items
+	 * @return the list of the records, null if the file doesn't match the format or the data
+	 * version: the file must be written again
+	 * @throws IOException if the file cannot be read
+	 */
+	@Nullable
+	public static <T extends IFlexible> MappedItemList<T> open(@NonNull File file, long dataVersion,
+															   @NonNull RecordBinder<T> binder)
+			throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() < HEADER_SIZE) return null;
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			int recordSize = header.getInt(16);
+			int recordCount = header.getInt(20);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION
+					|| header.getLong(8) != dataVersion || recordSize < 1 || recordCount < 0
+					|| channel.size() != HEADER_SIZE + (long) recordSize * recordCount) return null;
+			// A single mapping is limited to 2GB: records are mapped in segments
+			int segmentRecords = Integer.MAX_VALUE / recordSize;
+			int segmentCount = recordCount == 0 ? 0 : (recordCount - 1) / segmentRecords + 1;
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				int records = Math.min(segmentRecords, recordCount - i * segmentRecords);
+				// The mapping remains valid after the channel is closed
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_SIZE + (long) i * segmentRecords * recordSize, (long) records * recordSize);
+			}
+			if (FlexibleAdapter.DEBUG)
+				Log.d(TAG, "Mapped " + recordCount + " records in " + segmentCount + " segments");
+			return new MappedItemList<>(segments, recordSize, recordCount, segmentRecords, binder);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Sets the number of the flyweight items, it should be greater than the number of the
+	 * items visible and cached by the RecyclerView at the same time.
+	 * <p>Default value is 128.</p>
+	 *
+	 * @param count the number of the flyweights
+	 * @return this list, so the call can be chained
+	 */
+	public MappedItemList<T> setFlyweightCount(@IntRange(from = 1) int count) {
+		mFlyweights = new Object[Math.max(1, count)];
+		mFlyweightPositions = new int[mFlyweights.length];
+		Arrays.fill(mFlyweightPositions, NO_POSITION);
+		return this;
+	}
+
+	/**
+	 * Sets the Executor to filter the records.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the Executor
+	 * @return this list, so the call can be chained
+	 */
+	public MappedItemList<T> setExecutor(@NonNull Executor executor) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * @return true if the list is showing only the records matching a constraint
+	 */
+	public boolean isFiltered() {
+		return mFiltered != null;
+	}
+
+	/**
+	 * @param position the position in the list
+	 * @return the position of the record in the file
+	 */
+	public int getRecordPosition(int position) {
+		return mFiltered != null ? mFiltered[position] : position;
+	}
+
+	/**
+	 * Scans in background all the records with
+	 * {@link RecordBinder#filterRecord(ByteBuffer, int, byte[])}, then the matching records are
+	 * displayed and the Adapter is notified of the new data set. A scan superseded by a newer
+	 * one is discarded.
+	 *
+	 * @param constraint the constraint, empty or null to display all the records
+	 */
+	@Override
+	public void filter(@Nullable String constraint) {
+		final int generation = ++mFilterGeneration;
+		if (constraint == null || constraint.trim().isEmpty()) {
+			setFiltered(null, 0);
+			return;
+		}
+		// Lowercase char by char, as the records are compared by textContains()
+		final byte[] query = toLowerCaseText(constraint.trim());
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				int[] filtered = new int[64];
+				int count = 0;
+				for (int position = 0; position < mRecordCount; position++) {
+					if ((position & 0xFFF) == 0 && generation != mFilterGeneration) return;
+					if (mBinder.filterRecord(getSegment(position), getOffset(position), query)) {
+						if (count == filtered.length)
+							filtered = Arrays.copyOf(filtered, count * 2);
+						filtered[count++] = position;
+					}
+				}
+				if (FlexibleAdapter.DEBUG)
+					Log.v(TAG, "Filtered " + count + " records in " + (System.currentTimeMillis() - start) + "ms");
+				final int[] result = filtered;
+				final int resultCount = count;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation == mFilterGeneration) setFiltered(result, resultCount);
+					}
+				});
+			}
+		});
+	}
+
+	private void setFiltered(int[] filtered, int count) {
+		mFiltered = filtered;
+		mFilteredCount = count;
+		Arrays.fill(mFlyweightPositions, NO_POSITION);
+		notifyDataSetChanged();
+	}
+
+	private ByteBuffer getSegment(int recordPosition) {
+		return mSegments[recordPosition / mSegmentRecords];
+	}
+
+	private int getOffset(int recordPosition) {
+		return (recordPosition % mSegmentRecords) * mRecordSize;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int position) {
+		if (position < 0 || position >= size())
+			throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " + size());
+		int slot = position % mFlyweights.length;
+		T flyweight = (T) mFlyweights[slot];
+		if (flyweight == null) {
+			flyweight = mBinder.newFlyweight();
+			mFlyweights[slot] = flyweight;
+		}
+		if (mFlyweightPositions[slot] != position) {
+			int recordPosition = getRecordPosition(position);
+			mBinder.bindRecord(flyweight, getSegment(recordPosition), getOffset(recordPosition), recordPosition);
+			mFlyweightPositions[slot] = position;
+		}
+		return flyweight;
+	}
+
+	@Override
+	public int size() {
+		return mFiltered != null ? mFilteredCount : mRecordCount;
+	}
+
+	/**
+	 * Searches only among the flyweights currently bound.
+	 */
+	@Override
+	public int indexOf(Object object) {
+		for (int slot = 0; slot < mFlyweights.length; slot++) {
+			if (mFlyweightPositions[slot] != NO_POSITION && mFlyweights[slot].equals(object))
+				return mFlyweightPositions[slot];
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object object) {
+		return indexOf(object);
+	}
+
+	/*-------------------*/
+	/* FIXED TEXT FIELDS */
+	/*-------------------*/
+
+	/**
+	 * Writes a text field of fixed length, one byte per character (ISO-8859-1), padded with
+	 * zeros. Longer texts are truncated, unsupported characters are written as {@code '?'}.
+	 *
+	 * @param record the record buffer
+	 * @param offset the offset of the field
+	 * @param length the length of the field
+	 * @param text   the text to write
+	 */
+	public static void putText(@NonNull ByteBuffer record, int offset, int length, @Nullable String text) {
+		int textLength = text == null ? 0 : Math.min(text.length(), length);
+		for (int i = 0; i < length; i++) {
+			char c = i < textLength ? text.charAt(i) : 0;
+			record.put(offset + i, (byte) (c > 0xFF ? '?' : c));
+		}
+	}
+
+	/**
+	 * Encodes the text as written by {@link #putText(ByteBuffer, int, int, String)}.
+	 *
+	 * @param text the text to encode
+	 * @return the ISO-8859-1 bytes of the text
+	 */
+	@NonNull
+	public static byte[] toText(@NonNull String text) {
+		byte[] bytes = new byte[text.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = text.charAt(i);
+			bytes[i] = (byte) (c > 0xFF ? '?' : c);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Encodes the text lowercased char by char, independently from the default Locale, as
+	 * expected by {@link #textContains(ByteBuffer, int, int, byte[])}.
+	 *
+	 * @param text the text to encode
+	 * @return the ISO-8859-1 bytes of the lowercase text
+	 */
+	@NonNull
+	public static byte[] toLowerCaseText(@NonNull String text) {
+		byte[] bytes = new byte[text.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = Character.toLowerCase(text.charAt(i));
+			bytes[i] = (byte) (c > 0xFF ? '?' : c);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Reads a text field written with {@link #putText(ByteBuffer, int, int, String)}.
+	 *
+	 * @param buffer the mapped buffer
+	 * @param offset the offset of the field
+	 * @param length the length of the field
+	 * @return the text, without padding
+	 */
+	@NonNull
+	public static String getText(@NonNull ByteBuffer buffer, int offset, int length) {
+		char[] chars = new char[length];
+		int textLength = 0;
+		while (textLength < length) {
+			byte b = buffer.get(offset + textLength);
+			if (b == 0) break;
+			chars[textLength++] = (char) (b & 0xFF);
+		}
+		return new String(chars, 0, textLength);
+	}
+
+	/**
+	 * Checks, ignoring the case and without creating objects, if a text field written with
+	 * {@link #putText(ByteBuffer, int, int, String)} contains the constraint.
+	 *
+	 * @param buffer     the mapped buffer
+	 * @param offset     the offset of the field
+	 * @param length     the length of the field
+	 * @param constraint the lowercase constraint in ISO-8859-1 bytes
+	 * @return true if the field contains the constraint, false otherwise
+	 * @see #toLowerCaseText(String)
+	 */
+	public static boolean textContains(@NonNull ByteBuffer buffer, int offset, int length,
+									   @NonNull byte[] constraint) {
+		if (constraint.length == 0) return true;
+		int last = length - constraint.length;
+		for (int start = 0; start <= last; start++) {
+			int i = 0;
+			while (i < constraint.length) {
+				byte b = buffer.get(offset + start + i);
+				if (b == 0) return false;
+				if (Character.toLowerCase((char) (b & 0xFF)) != (char) (constraint[i] & 0xFF)) break;
+				i++;
+			}
+			if (i == constraint.length) return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2016 Davide Steduto
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.davidea.flexibleadapter.paging;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import eu.davidea.flexibleadapter.FlexibleAdapter;
+import eu.davidea.flexibleadapter.filter.FilterDataSource;
+import eu.davidea.flexibleadapter.items.IFlexible;
+
+/**
+ * Read only list of items loaded in pages, on demand, by a {@link PageLoader}.
+ * <p>Set it with {@link FlexibleAdapter#setLazyItems(LazyItemList)}: while binding, the
+ * Adapter requests the pages within the <i>prefetch distance</i> of the bound position. Loaded
+ * pages are kept in a LRU cache of a maximum number of pages, the positions of the pages not
+ * loaded, or evicted, are occupied by the <i>placeholder</i> item, evicted pages are loaded
+ * again when their positions are bound.</p>
+ * When the total count is known, the list has always the full size, so FastScroller and
+ * {@code scrollToPosition} work also across the regions not yet loaded. When it is unknown,
+ * the list grows page by page while the user scrolls, until a page smaller than the page size
+ * is loaded.
+ * <p>The list is filtered through a {@link FilterDataSource}: while a constraint is set, the
+ * pages hold only the matching items, loaded as the pages of an unknown count.</p>
+ *
+ * @param <T> the type of the items
+ * @author Davide Steduto
+ * @see LazyItemList
+ * @see FlexibleAdapter#setFilterDataSource(eu.davidea.flexibleadapter.filter.FilterDataSource, int)
+ * @since 22/01/2017 Created
+ */
+public class PagedItemList<T extends IFlexible> extends LazyItemList<T> {
+
+	private static final String TAG = PagedItemList.class.getSimpleName();
+	public static final int COUNT_UNKNOWN = -1;
+	private static final int DEFAULT_MAX_PAGES = 10;
+
+	/**
+	 * Loads the pages of a {@link PagedItemList}.
+	 */
+	public interface PageLoader<T extends IFlexible> {
+
+		/**
+		 * Loads the items of a page. <b>This method is called in a background thread.</b>
+		 *
+		 * @param page     the page to load, starting from 0
+		 * @param pageSize the number of the items of each page
+		 * @return the items of the page, the last page can be smaller; null if the loading
+		 * failed, the page will be requested again
+		 */
+		@Nullable
+		List<T> loadPage(@IntRange(from = 0) int page, @IntRange(from = 1) int pageSize);
+	}
+
+	private final PageLoader<T> mLoader;
+	private final int mPageSize;
+	private final T mPlaceholder;
+	private final int mCount;
+	private boolean countKnown;
+	private int mSize;
+	private boolean endReached;
+	private int mPrefetchDistance;
+	private int mMaxPages = DEFAULT_MAX_PAGES;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private FilterDataSource<T> mFilterDataSource;
+	private String mConstraint;
+	/* Incremented when the loaded pages are discarded: pages loading are dropped */
+	private int mGeneration;
+
+	/* Loaded pages, by access order, and the pages currently loading */
+	private final LinkedHashMap<Integer, List<T>> mPages = new LinkedHashMap<>(16, 0.75f, true);
+	private final Set<Integer> mLoading = new HashSet<>();
+
+	/**
+	 * @param loader      the loader of the pages
+	 * @param pageSize    the number of the items of each page
+	 * @param count       the total number of the items, or {@link #COUNT_UNKNOWN}
+	 * @param placeholder the item displayed in the positions not loaded
+	 */
+	public PagedItemList(@NonNull PageLoader<T> loader, @IntRange(from = 1) int pageSize,
+						 int count, @NonNull T placeholder) {
+		if (pageSize < 1) throw new IllegalArgumentException("Page size must be positive");
+		mLoader = loader;
+		mPageSize = pageSize;
+		mPlaceholder = placeholder;
+		mCount = count;
+		countKnown = count >= 0;
+		mSize = Math.max(0, count);
+		mPrefetchDistance = pageSize;
+	}
+
+	/**
+	 * @return the number of the items of each page
+	 */
+	public int getPageSize() {
+		return mPageSize;
+	}
+
+	/**
+	 * @return the item displayed in the positions not loaded
+	 */
+	@NonNull
+	public T getPlaceholder() {
+		return mPlaceholder;
+	}
+
+	/**
+	 * Sets the number of the positions, before and after the bound position, whose pages are
+	 * loaded in advance.
+	 * <p>Default value is the page size.</p>
+	 *
+	 * @param prefetchDistance the number of the positions to prefetch
+	 * @return this list, so the call can be chained
+	 */
+	public PagedItemList<T> setPrefetchDistance(@IntRange(from = 0) int prefetchDistance) {
+		mPrefetchDistance = Math.max(0, prefetchDistance);
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of the pages kept in memory, the least recently used are
+	 * evicted. It should be enough to cover the visible items plus the prefetch distance on
+	 * both sides.
+	 * <p>Default value is {@value DEFAULT_MAX_PAGES}.</p>
+	 *
+	 * @param maxPages the maximum number of the loaded pages
+	 * @return this list, so the call can be chained
+	 */
+	public synchronized PagedItemList<T> setMaxPages(@IntRange(from = 1) int maxPages) {
+		mMaxPages = Math.max(1, maxPages);
+		trimPages(-1);
+		return this;
+	}
+
+	/**
+	 * Sets the Executor on which the pages are loaded.
+	 * <p>Default value is {@link AsyncTask#THREAD_POOL_EXECUTOR}.</p>
+	 *
+	 * @param executor the executor that runs {@link PageLoader#loadPage(int, int)}
+	 * @return this list, so the call can be chained
+	 */
+	public PagedItemList<T> setExecutor(@NonNull Executor executor) {
+		mExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Sets the source of the pages of the matching items, used by {@link #filter(String)}.
+	 * <p>{@link FlexibleAdapter} sets its own data source before filtering the list.</p>
+	 *
+	 * @param dataSource the filter data source, null to not filter the list
+	 * @return this list, so the call can be chained
+	 * @see FlexibleAdapter#setFilterDataSource(FilterDataSource, int)
+	 */
+	public synchronized PagedItemList<T> setFilterDataSource(@Nullable FilterDataSource<T> dataSource) {
+		mFilterDataSource = dataSource;
+		return this;
+	}
+
+	/**
+	 * @return true if the list is showing only the items matching a constraint
+	 */
+	public synchronized boolean isFiltered() {
+		return mConstraint != null;
+	}
+
+	/**
+	 * Discards the loaded pages and loads, through the {@link FilterDataSource}, the pages of
+	 * the items matching the constraint; the Adapter is notified of the new data set. Pages of
+	 * a previous constraint still loading are discarded.
+	 *
+	 * @param constraint the constraint, empty or null to display all the items
+	 */
+	@Override
+	public synchronized void filter(@Nullable String constraint) {
+		if (constraint != null && constraint.trim().isEmpty()) constraint = null;
+		if (constraint != null && mFilterDataSource == null) {
+			Log.w(TAG, "Cannot filter: FilterDataSource not set");
+			return;
+		}
+		if (constraint == null ? mConstraint == null : constraint.equals(mConstraint)) return;
+		mConstraint = constraint;
+		mGeneration++;
+		mPages.clear();
+		mLoading.clear();
+		countKnown = constraint == null && mCount >= 0;
+		mSize = countKnown ? mCount : 0;
+		endReached = false;
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Filtering pages with constraint=" + constraint);
+		notifyDataSetChanged();
+		loadAround(0);
+	}
+
+	/**
+	 * @param position the position to check
+	 * @return true if the item at the position is loaded, false if it's the placeholder
+	 */
+	public synchronized boolean isLoaded(int position) {
+		return mPages.containsKey(position / mPageSize);
+	}
+
+	/**
+	 * @return true if the total count is known or the last page has been loaded
+	 */
+	public synchronized boolean isComplete() {
+		return countKnown || endReached;
+	}
+
+	/**
+	 * Requests the pages within the prefetch distance of the position, if not loaded yet,
+	 * and refreshes the pages already loaded in the cache.
+	 *
+	 * @param position the bound position
+	 */
+	@Override
+	public synchronized void loadAround(int position) {
+		int lastPage = getPageCount() - 1;
+		// Unknown count: request the next page when approaching the end
+		if (!countKnown && !endReached && position + mPrefetchDistance >= mSize) {
+			requestPage(lastPage + 1);
+		}
+		int firstPage = Math.max(0, (position - mPrefetchDistance) / mPageSize);
+		int endPage = Math.min(lastPage, (position + mPrefetchDistance) / mPageSize);
+		for (int page = firstPage; page <= endPage; page++) {
+			if (mPages.get(page) == null) requestPage(page);
+		}
+	}
+
+	/**
+	 * Drops all the loaded pages, the pages will be loaded again when bound.
+	 * Call it when the data changed, with the same count.
+	 */
+	public synchronized void invalidate() {
+		mGeneration++;
+		mPages.clear();
+		mLoading.clear();
+		notifyItemRangeChanged(0, mSize);
+	}
+
+	@Override
+	public synchronized T get(int index) {
+		if (index < 0 || index >= mSize)
+			throw new IndexOutOfBoundsException("Index " + index + ", size " + mSize);
+		List<T> page = mPages.get(index / mPageSize);
+		int offset = index % mPageSize;
+		return page != null && offset < page.size() ? page.get(offset) : mPlaceholder;
+	}
+
+	@Override
+	public synchronized int size() {
+		return mSize;
+	}
+
+	/**
+	 * Searches only the loaded pages.
+	 */
+	@Override
+	public synchronized int indexOf(Object object) {
+		int index = -1;
+		for (Map.Entry<Integer, List<T>> entry : mPages.entrySet()) {
+			int offset = entry.getValue().indexOf(object);
+			if (offset >= 0) {
+				int position = entry.getKey() * mPageSize + offset;
+				if (index < 0 || position < index) index = position;
+			}
+		}
+		return index;
+	}
+
+	private int getPageCount() {
+		return (mSize + mPageSize - 1) / mPageSize;
+	}
+
+	private void requestPage(final int page) {
+		if (!mLoading.add(page)) return;
+		if (FlexibleAdapter.DEBUG) Log.v(TAG, "Loading page " + page);
+		final int generation = mGeneration;
+		final String constraint = mConstraint;
+		final FilterDataSource<T> dataSource = mFilterDataSource;
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				List<T> items = null;
+				try {
+					if (constraint != null) {
+						items = dataSource.loadFilteredItems(constraint, page * mPageSize, mPageSize);
+						if (items == null) items = Collections.emptyList();
+					} else {
+						items = mLoader.loadPage(page, mPageSize);
+					}
+				} catch (Exception e) {
+					Log.e(TAG, "Unable to load page " + page, e);
+				}
+				final List<T> loadedItems = items;
+				mHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onPageLoaded(page, loadedItems, generation);
+					}
+				});
+			}
+		});
+	}
+
+	private synchronized void onPageLoaded(int page, List<T> items, int generation) {
+		// Discarded by invalidate() or filter()
+		if (generation != mGeneration || !mLoading.remove(page) || items == null) return;
+		int positionStart = page * mPageSize;
+		if (countKnown) {
+			if (positionStart >= mSize) return;
+			mPages.put(page, items);
+			notifyItemRangeChanged(positionStart, Math.min(items.size(), mSize - positionStart));
+		} else if (positionStart >= mSize) {
+			// New page at the end
+			if (positionStart > mSize) return;
+			endReached = items.size() < mPageSize;
+			if (items.isEmpty()) return;
+			mPages.put(page, items);
+			mSize += items.size();
+			if (FlexibleAdapter.DEBUG)
+				Log.v(TAG, "Appended page " + page + ", size=" + mSize + ", endReached=" + endReached);
+			notifyItemRangeInserted(positionStart, items.size());
+		} else {
+			// Evicted page loaded again
+			mPages.put(page, items);
+			notifyItemRangeChanged(positionStart, Math.min(items.size(), mSize - positionStart));
+		}
+		trimPages(page);
+	}
+
+	/**
+	 * Evicts the least recently used pages, except the page just loaded.
+	 */
+	private void trimPages(int keepPage) {
+		Iterator<Map.Entry<Integer, List<T>>> iterator = mPages.entrySet().iterator();
+		while (mPages.size() > mMaxPages && iterator.hasNext()) {
+			Map.Entry<Integer, List<T>> entry = iterator.next();
+			if (entry.getKey() == keepPage) continue;
+			iterator.remove();
+			if (FlexibleAdapter.DEBUG) Log.v(TAG, "Evicted page " + entry.getKey());
+			// Bound views of the evicted page show the placeholder
+			notifyItemRangeChanged(entry.getKey() * mPageSize, entry.getValue().size());
+		}
+	}
+
+}
@@ -40,6 +40,7 @@ import java.util.Locale;
 
 import eu.davidea.flexibleadapter.R;
 import eu.davidea.flexibleadapter.SelectableAdapter;
+import eu.davidea.flexibleadapter.filter.SearchKey;
 
 /**
  * @author Davide Steduto
@@ -184,6 +185,53 @@ public final class Utils {
 		}
 	}
 
+	/**
+	 * Sets a spannable text with the accent color (if available) into the provided TextView,
+	 * highlighting all the occurrences of the constraint, ignoring case and accents.
+	 * <p>Internally calls {@link #fetchAccentColor(Context, int)}.</p>
+	 *
+	 * @param textView   the TextView to transform
+	 * @param searchKey  the search key of the original text
+	 * @param constraint the text to highlight
+	 * @see #highlightText(TextView, SearchKey, String, int)
+	 * @since 5.0.0-rc1
+	 */
+	public static void highlightText(@NonNull TextView textView, @NonNull SearchKey searchKey,
+									 @Nullable String constraint) {
+		int accentColor = fetchAccentColor(textView.getContext(), 1);
+		highlightText(textView, searchKey, constraint, accentColor);
+	}
+
+	/**
+	 * Sets a spannable text with any highlight color into the provided TextView, highlighting
+	 * all the occurrences of the constraint, ignoring case and accents.
+	 * <p>The match ranges memorized in the search key by the filter are reused: the text is
+	 * not transformed and searched again at each bind.</p>
+	 *
+	 * @param textView   the TextView to transform
+	 * @param searchKey  the search key of the original text
+	 * @param constraint the text to highlight
+	 * @param color      the highlight color
+	 * @see SearchKey#matches(String)
+	 * @since 5.0.0-rc1
+	 */
+	public static void highlightText(@NonNull TextView textView, @NonNull SearchKey searchKey,
+									 @Nullable String constraint, @ColorInt int color) {
+		int[] ranges = searchKey.getMatchRanges(constraint);
+		if (ranges.length > 0) {
+			Spannable spanText = Spannable.Factory.getInstance().newSpannable(searchKey.getText());
+			for (int i = 0; i < ranges.length; i += 2) {
+				spanText.setSpan(new ForegroundColorSpan(color), ranges[i], ranges[i + 1],
+						Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+				spanText.setSpan(new StyleSpan(Typeface.BOLD), ranges[i], ranges[i + 1],
+						Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+			}
+			textView.setText(spanText, TextView.BufferType.SPANNABLE);
+		} else {
+			textView.setText(searchKey.getText(), TextView.BufferType.NORMAL);
+		}
+	}
+
 	/**
 	 * Resolves bug #161. Necessary when {@code theme} attribute is used in the layout.
 	 * Used by {@code FlexibleAdapter.getStickyHeaderContainer()} method.
@@ -53,7 +53,7 @@ public abstract class FlexibleViewHolder extends ContentViewHolder
 	private static final String TAG = FlexibleViewHolder.class.getSimpleName();
 
 	// FlexibleAdapter is needed to retrieve listeners and item status
-	protected final FlexibleAdapter mAdapter;
+	protected FlexibleAdapter mAdapter;
 
 	// These 2 fields avoid double tactile feedback triggered by Android during the touch event
 	// (Drag or Swipe), also assure the LongClick event is correctly fired for ActionMode if that
@@ -97,6 +97,19 @@ public abstract class FlexibleViewHolder extends ContentViewHolder
 		getContentView().setOnLongClickListener(this);
 	}
 
+	/**
+	 * Attaches this ViewHolder to the Adapter that binds it.
+	 * <p>Called by the Adapter while binding: a ViewHolder shared through a common
+	 * RecycledViewPool can be created by an Adapter and bound by another.</p>
+	 *
+	 * @param adapter the Adapter binding this ViewHolder
+	 * @see eu.davidea.flexibleadapter.common.SharedRecycledViewPool
+	 * @since 5.0.0-rc1
+	 */
+	public final void setAdapter(@NonNull FlexibleAdapter adapter) {
+		mAdapter = adapter;
+	}
+
 	/*--------------------------------*/
 	/* CLICK LISTENERS IMPLEMENTATION */
 	/*--------------------------------*/